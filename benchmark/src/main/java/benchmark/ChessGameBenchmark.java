@@ -0,0 +1,105 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ChessGame calls the server makes when validating and finishing a move
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+
+    @Param({"start", "middlegame", "endgame", "checkmate", "stalemate"})
+    public String position;
+
+    private ChessGame game;
+    private ChessGame.TeamColor turn;
+    private int kingSquare;
+    private ChessPiece king;
+
+    @Setup
+    public void setup() {
+        game = Positions.named(position);
+        turn = game.getTeamTurn();
+        kingSquare = game.getBoard().getKingSquare(turn);
+        king = game.getBoard().getPiece(kingSquare);
+    }
+
+    // puts the king back on its own square, which changes nothing but the board's mod count, so
+    // the game's cached status is worked out again as it would be after a move
+    private void touchBoard() {
+        game.getBoard().addPiece(kingSquare, king);
+    }
+
+    /**
+     * validMoves for every piece of the team to move, the way a client asks for move hints
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == turn) {
+                    Collection<ChessMove> moves = game.validMoves(position);
+                    blackhole.consume(moves);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(turn);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        touchBoard();
+        return game.isInCheckmate(turn);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        touchBoard();
+        return game.isInStalemate(turn);
+    }
+
+    /**
+     * isInCheckmate asked again of a position it has already answered for
+     */
+    @Benchmark
+    public boolean isInCheckmateCached() {
+        return game.isInCheckmate(turn);
+    }
+
+    /**
+     * isInStalemate asked again of a position it has already answered for
+     */
+    @Benchmark
+    public boolean isInStalemateCached() {
+        return game.isInStalemate(turn);
+    }
+}
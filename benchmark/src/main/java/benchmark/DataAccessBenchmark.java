@@ -0,0 +1,73 @@
+package benchmark;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDataAccess;
+import model.GameData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryDataAccess game operations against a store already holding a number of games
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataAccessBenchmark {
+
+    @Param({"1000"})
+    public int games;
+
+    private MemoryDataAccess dataAccess;
+    private GameData update;
+    private int nextID;
+
+    // rebuilt every iteration so createGame doesn't keep growing the store
+    @Setup(Level.Iteration)
+    public void setup() throws DataAccessException {
+        dataAccess = new MemoryDataAccess();
+        for (int id = 0; id < games; id++) {
+            dataAccess.createGame(new GameData(id, "white" + id, "black" + id, "game" + id, new ChessGame()));
+        }
+        update = new GameData(games / 2, "white", "black", "updated", new ChessGame());
+        nextID = games;
+    }
+
+    @Benchmark
+    public void createGame() throws DataAccessException {
+        dataAccess.createGame(new GameData(nextID++, null, null, "new", new ChessGame()));
+    }
+
+    @Benchmark
+    public GameData getGame() throws DataAccessException {
+        return dataAccess.getGame(games / 2);
+    }
+
+    @Benchmark
+    public void updateGame() {
+        dataAccess.updateGame(update);
+    }
+
+    @Benchmark
+    public void listGames(Blackhole blackhole) {
+        for (GameData game : dataAccess.listGames()) {
+            blackhole.consume(game);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Fen;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FEN reading and writing, for bulk loading positions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FenBenchmark {
+
+    @Param({"start", "middlegame", "endgame"})
+    public String position;
+
+    private String fen;
+    private byte[] fenBytes;
+    private ChessGame game;
+    private final StringBuilder out = new StringBuilder(100);
+
+    @Setup
+    public void setup() {
+        game = Positions.named(position);
+        fen = game.toFen();
+        fenBytes = fen.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public ChessGame parse() {
+        return Fen.parse(fen);
+    }
+
+    @Benchmark
+    public ChessGame parseBytes() {
+        return Fen.parse(fenBytes, 0, fenBytes.length);
+    }
+
+    // reuses one game, the way a bulk loader would
+    @Benchmark
+    public ChessGame load() {
+        Fen.load(game, fen, 0, fen.length());
+        return game;
+    }
+
+    @Benchmark
+    public int write() {
+        out.setLength(0);
+        Fen.write(game, out);
+        return out.length();
+    }
+}
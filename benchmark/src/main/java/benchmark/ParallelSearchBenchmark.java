@@ -0,0 +1,64 @@
+package benchmark;
+
+import chess.ChessGame;
+import engine.ParallelSearch;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to reach a fixed depth with Lazy SMP as threads are added. A threads value of 0 means
+ * one per available core. The table is cleared before each search so every run starts cold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({"middlegame"})
+    public String position;
+
+    @Param({"7"})
+    public int depth;
+
+    @Param({"1", "2", "4", "0"})
+    public int threads;
+
+    private ChessGame game;
+    private ParallelSearch search;
+
+    @Setup
+    public void setup() {
+        game = Positions.named(position);
+        int count = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        search = new ParallelSearch(count, new TranspositionTable(64));
+    }
+
+    @TearDown
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public SearchResult timeToDepth() {
+        search.clear();
+        return search.search(game, SearchLimits.depth(depth));
+    }
+}
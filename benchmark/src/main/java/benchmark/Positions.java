@@ -0,0 +1,131 @@
+package benchmark;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Fixed positions the benchmarks run against, so results are comparable between builds.
+ */
+public final class Positions {
+
+    /**
+     * Busy middlegame with pins, checks and captures available to both sides
+     */
+    public static final String MIDDLEGAME = """
+            |r| | | |k| | |r|
+            |p| |p|p|q|p|b| |
+            |b|n| | |p|n|p| |
+            | | | |P|N| | | |
+            | |p| | |P| | | |
+            | | |N| | |Q| |p|
+            |P|P|P|B|B|P|P|P|
+            |R| | | |K| | |R|
+            """;
+
+    /**
+     * Sparse rook and pawn ending, long sliding rays and few pieces
+     */
+    public static final String ENDGAME = """
+            | | | | | | | | |
+            | | |p| | | | | |
+            | | | |p| | | | |
+            |K|P| | | | | |r|
+            | |R| | | |p| |k|
+            | | | | | | | | |
+            | | | | |P| |P| |
+            | | | | | | | | |
+            """;
+
+    /**
+     * White to move and mated, so every status check has to look at every escape
+     */
+    public static final String CHECKMATE = """
+            | | | | | | | |k|
+            | | | | | | |p|p|
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            |q|r| | | | | | |
+            |K| | | | | | | |
+            """;
+
+    /**
+     * Black to move with no legal moves and not in check
+     */
+    public static final String STALEMATE = """
+            |k| | | | | | | |
+            | | |Q| | | | | |
+            | |K| | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            """;
+
+    private Positions() {
+    }
+
+    /**
+     * @return a fresh copy of a named fixture: start, middlegame, endgame, checkmate or stalemate
+     */
+    public static ChessGame named(String name) {
+        return switch (name) {
+            case "start" -> new ChessGame();
+            case "middlegame" -> game(MIDDLEGAME, ChessGame.TeamColor.WHITE);
+            case "endgame" -> game(ENDGAME, ChessGame.TeamColor.WHITE);
+            case "checkmate" -> game(CHECKMATE, ChessGame.TeamColor.WHITE);
+            case "stalemate" -> game(STALEMATE, ChessGame.TeamColor.BLACK);
+            default -> throw new IllegalArgumentException("Unknown position " + name);
+        };
+    }
+
+    public static ChessGame game(String boardText, ChessGame.TeamColor turn) {
+        ChessGame game = new ChessGame();
+        game.setBoard(board(boardText));
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    /**
+     * Reads a board drawn the same way as the passoff tests, row 8 first
+     */
+    public static ChessBoard board(String boardText) {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int column = 1;
+        for (char c : boardText.toCharArray()) {
+            switch (c) {
+                case '\n' -> {
+                    column = 1;
+                    row--;
+                }
+                case ' ' -> column++;
+                case '|' -> {
+                }
+                default -> {
+                    ChessGame.TeamColor color = Character.isLowerCase(c) ? ChessGame.TeamColor.BLACK
+                            : ChessGame.TeamColor.WHITE;
+                    board.addPiece(Bitboards.square(row, column), ChessPiece.of(color, type(c)));
+                    column++;
+                }
+            }
+        }
+        return board;
+    }
+
+    private static ChessPiece.PieceType type(char c) {
+        return switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown piece " + c);
+        };
+    }
+}
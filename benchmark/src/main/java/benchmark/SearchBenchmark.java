@@ -0,0 +1,78 @@
+package benchmark;
+
+import chess.ChessGame;
+import engine.MaterialEvaluator;
+import engine.PieceSquareEvaluator;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed depth searches, reporting search speed in the "nodes" secondary result. The search is
+ * cleared each time so the transposition table and move ordering don't carry over between runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"start", "middlegame", "endgame"})
+    public String position;
+
+    @Param({"6"})
+    public int depth;
+
+    @Param({"pieceSquare", "material"})
+    public String evaluator;
+
+    private ChessGame game;
+    private Search search;
+
+    /**
+     * Counts nodes searched so JMH reports them as a rate next to the benchmark score
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        game = Positions.named(position);
+        search = new Search(new TranspositionTable(),
+                evaluator.equals("material") ? new MaterialEvaluator() : new PieceSquareEvaluator());
+    }
+
+    @Benchmark
+    public SearchResult search(Nodes counter) {
+        search.clear();
+        SearchResult result = search.search(game, SearchLimits.depth(depth));
+        counter.nodes += result.nodes();
+        return result;
+    }
+}
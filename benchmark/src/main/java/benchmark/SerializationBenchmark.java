@@ -0,0 +1,81 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessGameAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import model.GameData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round trips of GameData, which the server does for every game it sends or stores, and the
+ * binary codec the game is written with
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"start", "middlegame", "endgame"})
+    public String position;
+
+    // "fields" is Gson's default walk of the game, "compact" goes through ChessGameAdapter
+    @Param({"fields", "compact"})
+    public String format;
+
+    private Gson gson;
+    private GameData gameData;
+    private String json;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        gson = format.equals("compact")
+                ? new GsonBuilder().registerTypeAdapter(ChessGame.class, new ChessGameAdapter()).create()
+                : new Gson();
+        ChessGame game = Positions.named(position);
+        gameData = new GameData(1, "white", "black", "benchmark", game);
+        json = gson.toJson(gameData);
+        encoded = game.toBytes();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(gameData);
+    }
+
+    @Benchmark
+    public GameData fromJson() {
+        return gson.fromJson(json, GameData.class);
+    }
+
+    @Benchmark
+    public GameData roundTrip() {
+        return gson.fromJson(gson.toJson(gameData), GameData.class);
+    }
+
+    @Benchmark
+    public byte[] encodeGame() {
+        return gameData.game().toBytes();
+    }
+
+    @Benchmark
+    public ChessGame decodeGame() {
+        return ChessGame.fromBytes(encoded);
+    }
+}
@@ -1,12 +1,19 @@
 package server;
 
+import chess.GameSnapshot;
+import chess.InvalidMoveException;
 import com.google.gson.Gson;
+import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
 import dataaccess.MemoryDataAccess;
 import io.javalin.*;
 import io.javalin.http.Context;
+import model.request.CreateGameRequest;
+import model.request.JoinGameRequest;
+import model.request.ListGamesRequest;
 import model.request.LoginRequest;
 import model.request.LogoutRequest;
+import model.request.MakeMoveRequest;
 import model.request.RegisterRequest;
 import model.response.RegisterResult;
 import service.ClearService;
@@ -25,9 +32,16 @@ public class Server {
     private final Javalin javalin;
 
     public Server() {
-        // this may be incorrect because I am making new Memory Data points, and they may not be connected
-        this(new UserService(new MemoryDataAccess()), new ClearService(new MemoryDataAccess()),
-                new GameService(new MemoryDataAccess()));
+        this(new MemoryDataAccess());
+    }
+
+    // every service works on the same data, and clearing it drops the game service's snapshots
+    public Server(DataAccess dataAccess) {
+        this(new UserService(dataAccess), new GameService(dataAccess), dataAccess);
+    }
+
+    private Server(UserService userService, GameService gameService, DataAccess dataAccess) {
+        this(userService, new ClearService(dataAccess, gameService), gameService);
     }
 
     public Server(UserService userService, ClearService clearService, GameService gameService) {
@@ -44,6 +58,8 @@ public class Server {
                 .get("/game", this::getGamesList)
                 .post("/game", this::createGame)
                 .put("/game", this::joinGame)
+                .get("/game/{gameID}", this::getGame)
+                .put("/game/move", this::makeMove)
                 .exception(DataAccessException.class, this::exceptionHandler);
 
         // Register your endpoints and exception handlers here.
@@ -94,15 +110,61 @@ public class Server {
     }
 
     private void getGamesList(Context ctx) {
-//        gameService.getGames();
+        ListGamesRequest listGamesRequest = new ListGamesRequest(ctx.header("authorization"));
+        try {
+            ctx.result(new Gson().toJson(gameService.listGames(listGamesRequest)));
+        } catch (DataAccessException e) {
+            exceptionHandler(e, ctx);
+        }
     }
 
     private void createGame(Context ctx) {
-//        gameService.createGame();
+        CreateGameRequest body = new Gson().fromJson(ctx.body(), CreateGameRequest.class);
+        CreateGameRequest createGameRequest = new CreateGameRequest(ctx.header("authorization"),
+                body == null ? null : body.gameName());
+        try {
+            ctx.result(new Gson().toJson(gameService.createGame(createGameRequest)));
+        } catch (DataAccessException e) {
+            exceptionHandler(e, ctx);
+        }
     }
 
     private void joinGame(Context ctx) {
-//        gameService.joinGame();
+        JoinGameRequest body = new Gson().fromJson(ctx.body(), JoinGameRequest.class);
+        JoinGameRequest joinGameRequest = new JoinGameRequest(ctx.header("authorization"),
+                body == null ? null : body.playerColor(), body == null ? null : body.gameID());
+        try {
+            gameService.joinGame(joinGameRequest);
+            ctx.result("{}");
+        } catch (DataAccessException e) {
+            exceptionHandler(e, ctx);
+        }
+    }
+
+    // the latest published position of one game, read without waiting on moves being made
+    private void getGame(Context ctx) {
+        try {
+            int gameID = Integer.parseInt(ctx.pathParam("gameID"));
+            GameSnapshot snapshot = gameService.getSnapshot(ctx.header("authorization"), gameID);
+            ctx.result(new Gson().toJson(Map.of("game", snapshot)));
+        } catch (NumberFormatException e) {
+            exceptionHandler(new DataAccessException("bad request"), ctx);
+        } catch (DataAccessException e) {
+            exceptionHandler(e, ctx);
+        }
+    }
+
+    private void makeMove(Context ctx) {
+        MakeMoveRequest body = new Gson().fromJson(ctx.body(), MakeMoveRequest.class);
+        MakeMoveRequest makeMoveRequest = new MakeMoveRequest(ctx.header("authorization"),
+                body == null ? null : body.gameID(), body == null ? null : body.move());
+        try {
+            ctx.result(new Gson().toJson(Map.of("game", gameService.makeMove(makeMoveRequest))));
+        } catch (InvalidMoveException e) {
+            exceptionHandler(new DataAccessException("bad request"), ctx);
+        } catch (DataAccessException e) {
+            exceptionHandler(e, ctx);
+        }
     }
 
     private void exceptionHandler(DataAccessException ex, Context ctx) {
@@ -8,12 +8,26 @@ import java.security.Provider;
 public class ClearService {
 
     private DataAccess dataAccess;
+    private GameService gameService;
 
     public ClearService(DataAccess dataAccess) {
+        this(dataAccess, null);
+    }
+
+    /**
+     * @param gameService whose published snapshots are dropped along with the data, or null to
+     *                    clear only the data
+     */
+    public ClearService(DataAccess dataAccess, GameService gameService) {
         this.dataAccess = dataAccess;
+        this.gameService = gameService;
     }
 
     public void clear() throws DataAccessException {
         dataAccess.clear();
+        // snapshots of the cleared games would otherwise stay held until their IDs came up again
+        if (gameService != null) {
+            gameService.clear();
+        }
     }
 }
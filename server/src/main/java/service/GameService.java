@@ -1,13 +1,184 @@
 package service;
 
+import chess.ChessGame;
+import chess.GameSnapshot;
+import chess.InvalidMoveException;
 import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import model.AuthData;
+import model.GameData;
+import model.request.CreateGameRequest;
+import model.request.JoinGameRequest;
+import model.request.ListGamesRequest;
+import model.request.MakeMoveRequest;
+import model.response.CreateGameResult;
+import model.response.ListGamesResult;
+import model.response.ListedGame;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves are made on each game's ChessGame by one writer at a time, holding the game's lock.
+ * A game's first snapshot is published when it is created, and after every move the writer
+ * publishes a new one. Everything that only reads a game (listing games, sending the board to
+ * observers) works from the latest snapshot without ever touching the live game or taking its
+ * lock.
+ */
 public class GameService {
 
+    // the snapshot published for a game, along with the game it was taken from: IDs start over
+    // after a clear, and a move still running on a cleared game mustn't publish over a new one
+    private record Published(ChessGame game, GameSnapshot snapshot) {
+    }
+
     private DataAccess dataAccess;
+    private final Map<Integer, Published> published = new ConcurrentHashMap<>();
+    private final AtomicInteger nextGameID = new AtomicInteger(1);
 
     public GameService(DataAccess dataAccess) {
         this.dataAccess = dataAccess;
     }
 
+    public CreateGameResult createGame(CreateGameRequest createGameRequest) throws DataAccessException {
+        authorize(createGameRequest.authToken());
+        if (createGameRequest.gameName() == null) {
+            throw new DataAccessException("bad request");
+        }
+        ChessGame game = new ChessGame();
+        Published first = new Published(game, GameSnapshot.of(game));
+        // published before the game is stored, so anyone who finds the game finds its snapshot
+        int gameID;
+        do {
+            gameID = nextGameID.getAndIncrement();
+        } while (published.putIfAbsent(gameID, first) != null);
+        try {
+            dataAccess.createGame(new GameData(gameID, null, null, createGameRequest.gameName(), game));
+        } catch (DataAccessException ex) {
+            published.remove(gameID, first);
+            throw ex;
+        }
+        return new CreateGameResult(gameID);
+    }
+
+    /**
+     * Takes a color in a game for the requesting user, under the game's lock so a move being
+     * saved at the same time doesn't write the game back without the new player
+     */
+    public void joinGame(JoinGameRequest joinGameRequest) throws DataAccessException {
+        AuthData auth = authorize(joinGameRequest.authToken());
+        if (joinGameRequest.playerColor() == null || joinGameRequest.gameID() == null) {
+            throw new DataAccessException("bad request");
+        }
+        ChessGame game = dataAccess.getGame(joinGameRequest.gameID()).game();
+        synchronized (game) {
+            GameData gameData = current(joinGameRequest.gameID(), game);
+            boolean white = joinGameRequest.playerColor() == ChessGame.TeamColor.WHITE;
+            if ((white ? gameData.whiteUsername() : gameData.blackUsername()) != null) {
+                throw new DataAccessException("already taken");
+            }
+            dataAccess.updateGame(new GameData(gameData.gameID(),
+                    white ? auth.username() : gameData.whiteUsername(),
+                    white ? gameData.blackUsername() : auth.username(),
+                    gameData.gameName(), game));
+        }
+    }
+
+    /**
+     * Makes a move for the player whose turn it is and publishes the position it leads to
+     *
+     * @return the snapshot published after the move
+     * @throws InvalidMoveException if the move isn't legal, leaving the game as it was
+     */
+    public GameSnapshot makeMove(MakeMoveRequest makeMoveRequest) throws DataAccessException, InvalidMoveException {
+        AuthData auth = authorize(makeMoveRequest.authToken());
+        if (makeMoveRequest.gameID() == null || makeMoveRequest.move() == null) {
+            throw new DataAccessException("bad request");
+        }
+        int gameID = makeMoveRequest.gameID();
+        ChessGame game = dataAccess.getGame(gameID).game();
+        synchronized (game) {
+            GameData gameData = current(gameID, game);
+            String mover = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                    ? gameData.whiteUsername() : gameData.blackUsername();
+            if (!auth.username().equals(mover)) {
+                throw new DataAccessException("unauthorized");
+            }
+            game.makeMove(makeMoveRequest.move());
+            GameSnapshot snapshot = GameSnapshot.of(game);
+            // only replaces this game's own snapshot, so a move finishing after a clear publishes nothing
+            published.computeIfPresent(gameID,
+                    (id, current) -> current.game() == game ? new Published(game, snapshot) : current);
+            dataAccess.updateGame(gameData);
+            return snapshot;
+        }
+    }
+
+    /**
+     * @return the latest published position of a game
+     */
+    public GameSnapshot getSnapshot(String authToken, int gameID) throws DataAccessException {
+        authorize(authToken);
+        GameSnapshot snapshot = snapshot(dataAccess.getGame(gameID));
+        if (snapshot == null) {
+            throw new DataAccessException("bad request");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Lists every game with its latest published position, which can be serialized as it is
+     * while moves are being made
+     */
+    public ListGamesResult listGames(ListGamesRequest listGamesRequest) throws DataAccessException {
+        authorize(listGamesRequest.authToken());
+        Collection<GameData> games = dataAccess.listGames();
+        ArrayList<ListedGame> listed = new ArrayList<>(games.size());
+        for (GameData gameData : games) {
+            GameSnapshot snapshot = snapshot(gameData);
+            if (snapshot != null) {
+                listed.add(new ListedGame(gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(),
+                        gameData.gameName(), snapshot));
+            }
+        }
+        return new ListGamesResult(listed);
+    }
+
+    /**
+     * Drops every published snapshot and starts game IDs over, for when the games are cleared
+     */
+    public void clear() {
+        published.clear();
+        nextGameID.set(1);
+    }
+
+    // number of games with a snapshot held, for tests
+    int publishedCount() {
+        return published.size();
+    }
+
+    private AuthData authorize(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            throw new DataAccessException("unauthorized");
+        }
+        return dataAccess.getAuth(authToken);
+    }
+
+    // the stored record of a game, as long as it still holds the game that was locked
+    private GameData current(int gameID, ChessGame game) throws DataAccessException {
+        GameData gameData = dataAccess.getGame(gameID);
+        if (gameData.game() != game) {
+            throw new DataAccessException("bad request");
+        }
+        return gameData;
+    }
+
+    // the snapshot published for a stored game, or null if the game was cleared since it was read
+    private GameSnapshot snapshot(GameData gameData) {
+        Published current = published.get(gameData.gameID());
+        return current != null && current.game() == gameData.game() ? current.snapshot() : null;
+    }
 }
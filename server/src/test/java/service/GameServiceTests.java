@@ -0,0 +1,174 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.GameSnapshot;
+import chess.InvalidMoveException;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDataAccess;
+import model.request.CreateGameRequest;
+import model.request.JoinGameRequest;
+import model.request.ListGamesRequest;
+import model.request.MakeMoveRequest;
+import model.request.RegisterRequest;
+import model.response.ListedGame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GameServiceTests {
+
+    private UserService userService;
+    private GameService gameService;
+    private ClearService clearService;
+    private String white;
+    private String black;
+    private int gameID;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        DataAccess dataAccess = new MemoryDataAccess();
+        userService = new UserService(dataAccess);
+        gameService = new GameService(dataAccess);
+        clearService = new ClearService(dataAccess, gameService);
+
+        white = userService.register(new RegisterRequest("white", "pass", "white@mail.com")).authToken();
+        black = userService.register(new RegisterRequest("black", "pass", "black@mail.com")).authToken();
+        gameID = gameService.createGame(new CreateGameRequest(white, "game")).gameID();
+        gameService.joinGame(new JoinGameRequest(white, ChessGame.TeamColor.WHITE, gameID));
+        gameService.joinGame(new JoinGameRequest(black, ChessGame.TeamColor.BLACK, gameID));
+    }
+
+    @Test
+    @DisplayName("Listing Sees Each Published Move")
+    public void listWhileMoving() throws InterruptedException, DataAccessException, InvalidMoveException {
+        int plies = 300;
+        // key of the position after each ply, set before the move is made, and how many plies
+        // have been published
+        AtomicLongArray keys = new AtomicLongArray(plies + 1);
+        AtomicInteger published = new AtomicInteger();
+        keys.set(0, new ChessGame().getZobristKey());
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread[] readers = new Thread[2];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                try {
+                    while (!done.get() && failure.get() == null) {
+                        int before = published.get();
+                        Collection<ListedGame> games = gameService.listGames(new ListGamesRequest(white)).games();
+                        int after = published.get();
+                        ChessGame game = games.iterator().next().game().toGame();
+                        // a whole position from no earlier than the last move published before listing,
+                        // and at most the one move being published while the counter catches up
+                        boolean found = false;
+                        for (int ply = before; ply <= Math.min(after + 1, plies) && !found; ply++) {
+                            found = keys.get(ply) == game.getZobristKey();
+                        }
+                        if (!found || game.getBoard().getKingSquare(ChessGame.TeamColor.WHITE) < 0
+                                || game.getBoard().getKingSquare(ChessGame.TeamColor.BLACK) < 0) {
+                            failure.set("Listed " + game.toFen() + " after ply " + before);
+                        }
+                    }
+                } catch (DataAccessException ex) {
+                    failure.set(ex.getMessage());
+                }
+            });
+            readers[i].start();
+        }
+
+        Random random = new Random(7);
+        for (int ply = 0; ply < plies; ply++) {
+            ChessGame position = gameService.getSnapshot(white, gameID).toGame();
+            List<ChessMove> moves = new ArrayList<>();
+            for (Collection<ChessMove> pieceMoves : position.allMoves(position.getTeamTurn()).values()) {
+                moves.addAll(pieceMoves);
+            }
+            if (moves.isEmpty()) {
+                break;
+            }
+            String mover = position.getTeamTurn() == ChessGame.TeamColor.WHITE ? white : black;
+            ChessMove move = moves.get(random.nextInt(moves.size()));
+            position.makeMove(move);
+            keys.set(ply + 1, position.getZobristKey());
+            GameSnapshot snapshot = gameService.makeMove(new MakeMoveRequest(mover, gameID, move));
+            Assertions.assertEquals(position.getZobristKey(), snapshot.getZobristKey(), "Published another position");
+            published.set(ply + 1);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assertions.assertNull(failure.get(), "Reader saw a broken or stale position");
+        Assertions.assertTrue(published.get() > 10, "Game ended too soon to test anything");
+    }
+
+    @Test
+    @DisplayName("Only the Player to Move Can Move")
+    public void moveTurns() {
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        Assertions.assertThrows(DataAccessException.class,
+                () -> gameService.makeMove(new MakeMoveRequest(black, gameID, e4)), "Black moved for white");
+        Assertions.assertThrows(InvalidMoveException.class, () -> gameService.makeMove(new MakeMoveRequest(white,
+                gameID, new ChessMove(new ChessPosition(2, 5), new ChessPosition(5, 5), null))), "Illegal move made");
+        Assertions.assertDoesNotThrow(() -> gameService.makeMove(new MakeMoveRequest(white, gameID, e4)),
+                "Legal move refused");
+    }
+
+    @Test
+    @DisplayName("Clear Drops Snapshots")
+    public void clearDropsSnapshots() throws DataAccessException, InvalidMoveException {
+        gameService.makeMove(new MakeMoveRequest(white, gameID,
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+        gameService.createGame(new CreateGameRequest(white, "other"));
+        Assertions.assertEquals(2, gameService.publishedCount(), "Snapshots not published on create");
+
+        clearService.clear();
+        Assertions.assertEquals(0, gameService.publishedCount(), "Snapshots kept after clear");
+        Assertions.assertThrows(DataAccessException.class,
+                () -> gameService.listGames(new ListGamesRequest(white)), "Auth kept after clear");
+    }
+
+    @Test
+    @DisplayName("Clear Starts Game IDs Over")
+    public void clearResetsIDs() throws DataAccessException, InvalidMoveException {
+        gameService.makeMove(new MakeMoveRequest(white, gameID,
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+        clearService.clear();
+
+        String auth = userService.register(new RegisterRequest("white", "pass", "white@mail.com")).authToken();
+        int reused = gameService.createGame(new CreateGameRequest(auth, "again")).gameID();
+        Assertions.assertEquals(gameID, reused, "Game IDs not started over");
+        Assertions.assertEquals(new ChessGame().getZobristKey(), gameService.getSnapshot(auth, reused).getZobristKey(),
+                "New game shows the cleared game's board");
+        ListedGame listed = gameService.listGames(new ListGamesRequest(auth)).games().iterator().next();
+        Assertions.assertEquals("again", listed.gameName(), "Wrong game listed");
+        Assertions.assertNull(listed.whiteUsername(), "Cleared game's players kept");
+    }
+
+    @Test
+    @DisplayName("Join Checks Colors")
+    public void joinColors() throws DataAccessException {
+        Assertions.assertThrows(DataAccessException.class,
+                () -> gameService.joinGame(new JoinGameRequest(black, ChessGame.TeamColor.WHITE, gameID)),
+                "Took a color already taken");
+        Assertions.assertThrows(DataAccessException.class,
+                () -> gameService.joinGame(new JoinGameRequest(black, null, gameID)), "Joined without a color");
+        ListedGame listed = gameService.listGames(new ListGamesRequest(black)).games().iterator().next();
+        Assertions.assertEquals("white", listed.whiteUsername(), "Wrong white player");
+        Assertions.assertEquals("black", listed.blackUsername(), "Wrong black player");
+    }
+}
@@ -0,0 +1,108 @@
+package chess;
+
+/**
+ * Helpers for working with 64-bit square sets.
+ * <p>
+ * Squares are numbered 0-63 starting at row 1, column 1 (bit 0) and moving
+ * across each row before going up to the next one, so square = (row - 1) * 8 + (column - 1).
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        for (int from = 0; from < 64; from++) {
+            for (int[] dir : directions) {
+                long ray = 0;
+                int row = row(from) + dir[0];
+                int col = column(from) + dir[1];
+                while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                    int to = square(row, col);
+                    BETWEEN[from][to] = ray;
+                    ray |= bit(to);
+                    row += dir[0];
+                    col += dir[1];
+                }
+                // with the ray complete, record the full line through every square on it
+                long line = ray | bit(from) | oppositeRay(from, dir);
+                for (long squares = ray; squares != 0; squares &= squares - 1) {
+                    LINE[from][Long.numberOfTrailingZeros(squares)] = line;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * @return the square index for the given 1-based row and column
+     */
+    public static int square(int row, int col) {
+        return ((row - 1) << 3) + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-based row of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return squares strictly between two squares on the same row, column or diagonal,
+     * or an empty set if they don't share one
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return every square on the row, column or diagonal through both squares,
+     * or an empty set if they don't share one
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    private static long oppositeRay(int from, int[] dir) {
+        long ray = 0;
+        int row = row(from) - dir[0];
+        int col = column(from) - dir[1];
+        while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+            ray |= bit(square(row, col));
+            row -= dir[0];
+            col -= dir[1];
+        }
+        return ray;
+    }
+
+    /**
+     * @return index 0-11 of the piece set holding pieces of this color and type
+     */
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+}
@@ -1,20 +1,56 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Pieces are stored as twelve bitboards (one per color and piece type) along
+ * with team and total occupancy masks, see {@link Bitboards} for square numbering.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
 
-    private final ChessPiece[][] boardArray;
+    // one set per colored piece kind, indexed by Bitboards.pieceIndex
+    private final long[] pieceSets;
+    private final long[] teamSets;
+    private long occupied;
+    // Zobrist key of the pieces on the board, updated on every addPiece
+    private long zobristKey;
+    // bumped on every addPiece so cached results about the board can tell they are stale
+    private transient int modCount;
+    // square-indexed mirror of the sets so getPiece doesn't have to search them
+    private final ChessPiece[] squares;
 
     public ChessBoard() {
-        boardArray = new ChessPiece[8][8];
+        pieceSets = new long[12];
+        teamSets = new long[2];
+        squares = new ChessPiece[64];
+    }
+
+    /**
+     * Makes an independent copy of another board
+     */
+    public ChessBoard(ChessBoard other) {
+        pieceSets = other.pieceSets.clone();
+        teamSets = other.teamSets.clone();
+        occupied = other.occupied;
+        zobristKey = other.zobristKey;
+        squares = other.squares.clone();
+    }
+
+    /**
+     * Makes this board a copy of another, reusing this board's arrays
+     */
+    public void copyFrom(ChessBoard other) {
+        modCount++;
+        System.arraycopy(other.pieceSets, 0, pieceSets, 0, pieceSets.length);
+        System.arraycopy(other.teamSets, 0, teamSets, 0, teamSets.length);
+        occupied = other.occupied;
+        zobristKey = other.zobristKey;
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
     }
 
     /**
@@ -24,8 +60,35 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        int actualPositionRow = 8 - position.getRow();
-        boardArray[actualPositionRow][position.getColumn()-1] = piece;
+        addPiece(square(position), piece);
+    }
+
+    /**
+     * Adds a chess piece to the chessboard, replacing whatever was on the square
+     *
+     * @param square square index of the position, see {@link Bitboards}
+     * @param piece  the piece to add, or null to empty the square
+     */
+    public void addPiece(int square, ChessPiece piece) {
+        modCount++;
+        ChessPiece old = squares[square];
+        long bit = Bitboards.bit(square);
+        if (old != null) {
+            pieceSets[Bitboards.pieceIndex(old.getTeamColor(), old.getPieceType())] &= ~bit;
+            teamSets[old.getTeamColor().ordinal()] &= ~bit;
+            occupied &= ~bit;
+            zobristKey ^= Zobrist.piece(old, square);
+        }
+        if (piece != null) {
+            int pieceIndex = Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType());
+            // store the shared instance so pieces on the board can be compared by reference
+            piece = ChessPiece.of(pieceIndex);
+            pieceSets[pieceIndex] |= bit;
+            teamSets[piece.getTeamColor().ordinal()] |= bit;
+            occupied |= bit;
+            zobristKey ^= Zobrist.piece(pieceIndex, square);
+        }
+        squares[square] = piece;
     }
 
     /**
@@ -36,7 +99,106 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return boardArray[8-position.getRow()][position.getColumn()-1];
+        return squares[square(position)];
+    }
+
+    public ChessPiece getPiece(int square) {
+        return squares[square];
+    }
+
+    // off-board positions throw, as indexing the old 8x8 array did, instead of landing on
+    // another square
+    private static int square(ChessPosition position) {
+        int row = position.getRow();
+        int col = position.getColumn();
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            throw new ArrayIndexOutOfBoundsException("Position off the board: " + position);
+        }
+        return Bitboards.square(row, col);
+    }
+
+    /**
+     * @return set of squares holding pieces of the given color and type
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceSets[Bitboards.pieceIndex(color, type)];
+    }
+
+    /**
+     * @return set of squares holding pieces of the given team
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return teamSets[color.ordinal()];
+    }
+
+    /**
+     * @return set of all squares holding a piece
+     */
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    /**
+     * @return a counter that changes every time a piece is added or removed
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * @return Zobrist key of the pieces on the board, not including whose turn it is,
+     * see {@link ChessGame#getZobristKey()}
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Looks up a team's king in constant time. The king bitboard is kept current by addPiece,
+     * so boards built from any sequence of addPiece calls need no rescan.
+     *
+     * @return square index of the king, or -1 if the team has no king on the board
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        long kings = getPieces(color, ChessPiece.PieceType.KING);
+        return kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+    }
+
+    /**
+     * @return position of the team's king, or null if the team has no king on the board
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        int square = getKingSquare(color);
+        return square < 0 ? null : ChessPosition.of(square);
+    }
+
+    /**
+     * Finds every piece of a team that attacks a square, casting rays and knight, king and
+     * pawn patterns outward from the square rather than generating the attackers' moves
+     *
+     * @param square   square index being attacked
+     * @param attacker team whose pieces are attacking
+     * @param occupied occupancy to use for blocking sliding pieces
+     * @return set of squares holding the attacking pieces
+     */
+    public long attackersTo(int square, ChessGame.TeamColor attacker, long occupied) {
+        long queens = getPieces(attacker, ChessPiece.PieceType.QUEEN);
+        long diagonal = getPieces(attacker, ChessPiece.PieceType.BISHOP) | queens;
+        long straight = getPieces(attacker, ChessPiece.PieceType.ROOK) | queens;
+
+        // a pawn of the other color standing on the square would attack exactly the squares our pawns attack from
+        return (MoveGenerator.pawnAttacks(attacker.opponent(), square) & getPieces(attacker, ChessPiece.PieceType.PAWN))
+                | (MoveGenerator.knightAttacks(square) & getPieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (MoveGenerator.kingAttacks(square) & getPieces(attacker, ChessPiece.PieceType.KING))
+                | (SlidingAttacks.bishopAttacks(square, occupied) & diagonal)
+                | (SlidingAttacks.rookAttacks(square, occupied) & straight);
+    }
+
+    /**
+     * @return true if any piece of the attacking team could capture on the square
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        return attackersTo(square, attacker, occupied) != 0;
     }
 
     /**
@@ -44,46 +206,43 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        ChessPiece blackRook = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        ChessPiece blackBishop = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        ChessPiece blackKnight = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        ChessPiece blackQueen = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        ChessPiece blackKing = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        ChessPiece blackPawn = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-
-        ChessPiece whiteRook = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        ChessPiece whiteBishop = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        ChessPiece whiteKnight = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        ChessPiece whiteQueen = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        ChessPiece whiteKing = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        ChessPiece whitePawn = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-
-        addPiece(new ChessPosition(8,1), blackRook);
-        addPiece(new ChessPosition(8,8), blackRook);
-        addPiece(new ChessPosition(8,2), blackKnight);
-        addPiece(new ChessPosition(8,7), blackKnight);
-        addPiece(new ChessPosition(8,3), blackBishop);
-        addPiece(new ChessPosition(8,6), blackBishop);
-        addPiece(new ChessPosition(8,4), blackQueen);
-        addPiece(new ChessPosition(8,5), blackKing);
-        for (int i = 1; i <= 8; i++) {
-            addPiece(new ChessPosition(7,i), blackPawn);
+        for (int square = 0; square < 64; square++) {
+            addPiece(square, null);
         }
 
-        addPiece(new ChessPosition(1,1), whiteRook);
-        addPiece(new ChessPosition(1,8), whiteRook);
-        addPiece(new ChessPosition(1,2), whiteKnight);
-        addPiece(new ChessPosition(1,7), whiteKnight);
-        addPiece(new ChessPosition(1,3), whiteBishop);
-        addPiece(new ChessPosition(1,6), whiteBishop);
-        addPiece(new ChessPosition(1,4), whiteQueen);
-        addPiece(new ChessPosition(1,5), whiteKing);
-        for (int i = 1; i <= 8; i++) {
-            addPiece(new ChessPosition(2,i), whitePawn);
+        ChessPiece.PieceType[] backRow = {
+                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
+        };
+        for (int col = 1; col <= 8; col++) {
+            addPiece(Bitboards.square(8, col), ChessPiece.of(ChessGame.TeamColor.BLACK, backRow[col - 1]));
+            addPiece(Bitboards.square(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(Bitboards.square(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(Bitboards.square(1, col), ChessPiece.of(ChessGame.TeamColor.WHITE, backRow[col - 1]));
         }
     }
 
+    /**
+     * @return the pieces packed into {@link PositionCodec#BOARD_BYTES} bytes
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[PositionCodec.BOARD_BYTES];
+        PositionCodec.encodeBoard(this, bytes, 0);
+        return bytes;
+    }
 
+    /**
+     * Rebuilds a board from {@link #toBytes()}
+     *
+     * @throws IllegalArgumentException if a square holds an unknown piece code
+     */
+    public static ChessBoard fromBytes(byte[] bytes) {
+        if (bytes.length < PositionCodec.BOARD_BYTES) {
+            throw new IllegalArgumentException("Encoded board needs " + PositionCodec.BOARD_BYTES + " bytes");
+        }
+        return PositionCodec.decodeBoard(bytes, 0);
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -91,11 +250,11 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(boardArray, that.boardArray);
+        return zobristKey == that.zobristKey && Arrays.equals(pieceSets, that.pieceSets);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(boardArray);
+        return Long.hashCode(zobristKey);
     }
 }
@@ -1,8 +1,12 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Objects;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -12,13 +16,110 @@ import java.util.Objects;
  */
 public class ChessGame {
 
+    // castling right bits, as used by getCastlingRights
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+
+    // rights that survive a move from or to each square, so moving a king or rook (or taking a
+    // rook) clears its rights with one AND per square instead of looking at the pieces
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[0] = ALL_CASTLING & ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] = ALL_CASTLING & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] = ALL_CASTLING & ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] = ALL_CASTLING & ~BLACK_QUEENSIDE;
+        CASTLING_MASK[60] = ALL_CASTLING & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] = ALL_CASTLING & ~BLACK_KINGSIDE;
+    }
+
+    // most moves a single piece can have, matches ChessPiece
+    private static final int MAX_PIECE_MOVES = 32;
+
     private TeamColor teamColor;
     private ChessBoard board;
+    // castling rights as one bit per king/side, and the square a pawn can capture en passant onto (-1 if none)
+    private int castlingRights;
+    private int enPassantSquare;
+    // moves since the last capture or pawn move, for the fifty-move rule
+    private int halfmoveClock;
+    // one packed UndoRecord per move made with applyMove
+    private transient long[] undoStack;
+    private transient int undoCount;
+    // per-team status, valid while the board and its mod count match
+    private transient GameStatus[] statusCache;
+    private transient ChessBoard statusBoard;
+    private transient int statusModCount;
+    private transient int[] scratchMoves;
+    // key of each position since the history started: historyBase keys copied from another game
+    // (see copyFrom), then the position after each move on the undo stack
+    private transient long[] keyHistory;
+    private transient int historyBase;
 
     public ChessGame() {
         teamColor = TeamColor.WHITE;
         board = new ChessBoard();
         board.resetBoard();
+        castlingRights = ALL_CASTLING;
+        enPassantSquare = -1;
+        undoStack = new long[64];
+        keyHistory = new long[undoStack.length + 1];
+        statusCache = new GameStatus[2];
+        scratchMoves = new int[MoveGenerator.MAX_MOVES];
+        resetHistory();
+    }
+
+    // a game at a decoded position, taking the board over rather than filling in a starting one
+    ChessGame(ChessBoard board, TeamColor turn, int castlingRights, int enPassantSquare, int halfmoveClock) {
+        undoStack = new long[64];
+        keyHistory = new long[undoStack.length + 1];
+        statusCache = new GameStatus[2];
+        scratchMoves = new int[MoveGenerator.MAX_MOVES];
+        setPosition(board, turn, castlingRights, enPassantSquare, halfmoveClock);
+    }
+
+    /**
+     * Makes an independent copy of another game, including its board and move history, so moves
+     * made on one don't affect the other
+     */
+    public ChessGame(ChessGame other) {
+        teamColor = other.teamColor;
+        board = new ChessBoard(other.board);
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        undoStack = other.undoStack.clone();
+        undoCount = other.undoCount;
+        statusCache = new GameStatus[2];
+        scratchMoves = new int[MoveGenerator.MAX_MOVES];
+        keyHistory = other.keyHistory.clone();
+        historyBase = other.historyBase;
+    }
+
+    /**
+     * Makes this game a copy of another's position, reusing this game's board and buffers. Only
+     * the history that can still matter for repetitions comes along, the positions since the
+     * last capture or pawn move, and none of the other game's moves can be taken back here.
+     */
+    public void copyFrom(ChessGame other) {
+        board.copyFrom(other.board);
+        teamColor = other.teamColor;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        int top = other.historyBase + other.undoCount;
+        int kept = Math.min(other.halfmoveClock, top);
+        if (kept + 1 >= keyHistory.length) {
+            keyHistory = new long[Integer.highestOneBit(kept + 1) * 2];
+        }
+        System.arraycopy(other.keyHistory, top - kept, keyHistory, 0, kept + 1);
+        historyBase = kept;
+        undoCount = 0;
+        statusBoard = null;
     }
 
     /**
@@ -29,12 +130,14 @@ public class ChessGame {
     }
 
     /**
-     * Set's which teams turn it is
+     * Set's which teams turn it is. This starts a new position, so the moves made so far can no
+     * longer be taken back with {@link #undoMove()} and don't count toward repetitions.
      *
      * @param team the team whose turn it is
      */
     public void setTeamTurn(TeamColor team) {
         teamColor = team;
+        resetHistory();
     }
 
     /**
@@ -42,16 +145,126 @@ public class ChessGame {
      */
     public enum TeamColor {
         WHITE,
-        BLACK
+        BLACK;
+
+        /**
+         * @return the other team
+         */
+        public TeamColor opponent() {
+            return this == WHITE ? BLACK : WHITE;
+        }
     }
 
-    private void movePiece(ChessMove move, ChessBoard board) {
-        if (move.getPromotionPiece() != null) {
-            board.addPiece(move.getEndPosition(), new ChessPiece(teamColor, move.getPromotionPiece()));
+    /**
+     * Where a team stands at the end of a move
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    /**
+     * Plays a move on the board without checking that it is legal, switching the team turn.
+     * Everything needed to take the move back is pushed onto the undo stack, so it can be
+     * reverted in place with {@link #undoMove()}. Castling rights and the en passant square are
+     * updated from the move itself, never by looking back over the board or the game.
+     *
+     * @param move a {@link PackedMove} from the move generator
+     */
+    public void applyMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        ChessPiece moved = board.getPiece(from);
+        int capturedSquare = (flags & PackedMove.EN_PASSANT) != 0 ? enPassantVictim(to) : to;
+        ChessPiece captured = board.getPiece(capturedSquare);
+
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
+        }
+        if (historyBase + undoCount + 1 == keyHistory.length) {
+            keyHistory = Arrays.copyOf(keyHistory, keyHistory.length * 2);
+        }
+        // packed before anything changes, so a clock it can't hold leaves the game as it was
+        long undo = UndoRecord.pack(move, moved, captured, castlingRights, enPassantSquare, halfmoveClock);
+        undoStack[undoCount++] = undo;
+
+        ChessPiece.PieceType promotion = PackedMove.promotionPiece(move);
+        board.addPiece(to, promotion == null ? moved : ChessPiece.of(moved.getTeamColor(), promotion));
+        board.addPiece(from, null);
+        if (capturedSquare != to) {
+            board.addPiece(capturedSquare, null);
+        } else if ((flags & PackedMove.CASTLE) != 0) {
+            board.addPiece(castlingRookTo(from, to), board.getPiece(castlingRookFrom(from, to)));
+            board.addPiece(castlingRookFrom(from, to), null);
+        }
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantSquare = (flags & PackedMove.DOUBLE_PUSH) != 0 ? (from + to) >>> 1 : -1;
+        if (captured != null || moved.getPieceType() == ChessPiece.PieceType.PAWN) {
+            halfmoveClock = 0;
         } else {
-            board.addPiece(move.getEndPosition(), board.getPiece(move.getStartPosition()));
+            halfmoveClock++;
+        }
+        teamColor = teamColor.opponent();
+        keyHistory[historyBase + undoCount] = positionKey();
+    }
+
+    /**
+     * Takes back the last move played with {@link #applyMove(int)}
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void undoMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to undo");
         }
-        board.addPiece(move.getStartPosition(), null);
+        long undo = undoStack[--undoCount];
+        int move = UndoRecord.move(undo);
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+
+        board.addPiece(from, UndoRecord.movedPiece(undo));
+        if ((flags & PackedMove.EN_PASSANT) != 0) {
+            board.addPiece(to, null);
+            board.addPiece(enPassantVictim(to), UndoRecord.capturedPiece(undo));
+        } else {
+            board.addPiece(to, UndoRecord.capturedPiece(undo));
+            if ((flags & PackedMove.CASTLE) != 0) {
+                board.addPiece(castlingRookFrom(from, to), board.getPiece(castlingRookTo(from, to)));
+                board.addPiece(castlingRookTo(from, to), null);
+            }
+        }
+        castlingRights = UndoRecord.castlingRights(undo);
+        enPassantSquare = UndoRecord.enPassantSquare(undo);
+        halfmoveClock = UndoRecord.halfmoveClock(undo);
+        teamColor = teamColor.opponent();
+    }
+
+    // square of the pawn taken by an en passant capture landing on the square, the one it passed over
+    private static int enPassantVictim(int to) {
+        return to < 32 ? to + 8 : to - 8;
+    }
+
+    private static int castlingRookFrom(int kingFrom, int kingTo) {
+        return kingTo > kingFrom ? kingTo + 1 : kingTo - 2;
+    }
+
+    private static int castlingRookTo(int kingFrom, int kingTo) {
+        return kingTo > kingFrom ? kingTo - 1 : kingTo + 1;
+    }
+
+    /**
+     * @return true if the move doesn't leave the moving team's king in check
+     */
+    private boolean isLegal(int move) {
+        TeamColor movingTeam = board.getPiece(PackedMove.from(move)).getTeamColor();
+        applyMove(move);
+        boolean legal = !isInCheck(movingTeam);
+        undoMove();
+        return legal;
     }
 
     /**
@@ -62,37 +275,113 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-//        teamColor = board.getPiece(startPosition).getTeamColor();
+        if (!onBoard(startPosition)) {
+            return null;
+        }
         ChessPiece startPiece = board.getPiece(startPosition);
 
         if (startPiece == null) {
             return null;
         }
-        ArrayList<ChessMove> moves = new ArrayList<>(startPiece.pieceMoves(board, startPosition));
-        ArrayList<ChessMove> validMoves = new ArrayList<>();
+        int[] moves = new int[MAX_PIECE_MOVES];
+        int count = pieceMoves(startPiece, Bitboards.square(startPosition), moves);
+        ArrayList<ChessMove> validMoves = new ArrayList<>(count);
 
-        for (ChessMove move : moves) {
-            ChessMove reverseMove;
-            if (move.getPromotionPiece() != null) {
-                reverseMove = new ChessMove(move.getEndPosition(), move.getStartPosition(), ChessPiece.PieceType.PAWN);
-            } else {
-                reverseMove = new ChessMove(move.getEndPosition(), move.getStartPosition(), null);
+        for (int i = 0; i < count; i++) {
+            if (isLegal(moves[i])) {
+                validMoves.add(PackedMove.toChessMove(moves[i]));
             }
-            ChessPiece tempPiece = null;
-            if (board.getPiece(move.getEndPosition()) != null) {
-                tempPiece = board.getPiece(move.getEndPosition());
+        }
+
+        return validMoves;
+    }
+
+    // the piece's own moves plus the castling and en passant moves that depend on the game state
+    private int pieceMoves(ChessPiece piece, int square, int[] moves) {
+        int count = piece.pieceMoves(board, square, moves, 0);
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            count = MoveGenerator.castlingMoves(board, piece.getTeamColor(), castlingRights, moves, count);
+        } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN && piece.getTeamColor() == teamColor) {
+            int start = count;
+            count = MoveGenerator.enPassantMoves(board, teamColor, enPassantSquare, moves, count);
+            // keep only this pawn's capture
+            for (int i = start; i < count; i++) {
+                if (PackedMove.from(moves[i]) == square) {
+                    moves[start++] = moves[i];
+                }
             }
-            movePiece(move, board);
-            if (!isInCheck(startPiece.getTeamColor())) {
-                validMoves.add(move);
+            count = start;
+        }
+        return count;
+    }
+
+    /**
+     * Gets every legal move for a team in one pass, as {@link PackedMove} ints. Unlike
+     * validMoves, pins and checks are worked out once instead of playing out each move.
+     *
+     * @param teamColor team to generate moves for
+     * @param moves     buffer to write into, {@link MoveGenerator#MAX_MOVES} long is always enough
+     * @return number of moves written to the buffer
+     */
+    public int legalMoves(TeamColor teamColor, int[] moves) {
+        return LegalMoveGenerator.generate(board, teamColor, castlingRights, enPassantSquare(teamColor), moves, 0);
+    }
+
+    // en passant is only open to the team whose turn it is
+    private int enPassantSquare(TeamColor teamColor) {
+        return teamColor == this.teamColor ? enPassantSquare : -1;
+    }
+
+    /**
+     * Gets every legal move for a team in one pass, grouped by the square the piece starts on.
+     * Gives the same moves as calling validMoves on each of the team's pieces, but only works out
+     * pins and checks once.
+     *
+     * @param teamColor team to get moves for
+     * @return moves for each piece that has at least one, in square order from a1
+     */
+    public Map<ChessPosition, Collection<ChessMove>> allMoves(TeamColor teamColor) {
+        int count = legalMoves(teamColor, scratchMoves);
+        // the generator puts king moves first, so bucket by square to get board order
+        List<List<ChessMove>> bySquare = new ArrayList<>(Collections.nCopies(64, null));
+        for (int i = 0; i < count; i++) {
+            int from = PackedMove.from(scratchMoves[i]);
+            if (bySquare.get(from) == null) {
+                bySquare.set(from, new ArrayList<>());
             }
-            movePiece(reverseMove, board);
-            if (tempPiece != null) {
-                board.addPiece(move.getEndPosition(), tempPiece);
+            bySquare.get(from).add(PackedMove.toChessMove(scratchMoves[i]));
+        }
+        Map<ChessPosition, Collection<ChessMove>> moves = new LinkedHashMap<>();
+        for (int square = 0; square < 64; square++) {
+            if (bySquare.get(square) != null) {
+                moves.put(ChessPosition.of(square), bySquare.get(square));
             }
         }
+        return moves;
+    }
 
-        return validMoves;
+    /**
+     * Gets where each of a team's pieces can legally move as bitboards, without building any
+     * move objects
+     *
+     * @param teamColor team to get moves for
+     * @return for each start square, a {@link Bitboards} set of the squares that piece can move to
+     */
+    public long[] legalTargets(TeamColor teamColor) {
+        long[] targets = new long[64];
+        legalTargets(teamColor, targets);
+        return targets;
+    }
+
+    /**
+     * Same as {@link #legalTargets(TeamColor)}, filling a caller's 64 long array
+     */
+    public void legalTargets(TeamColor teamColor, long[] targets) {
+        Arrays.fill(targets, 0, 64, 0L);
+        int count = legalMoves(teamColor, scratchMoves);
+        for (int i = 0; i < count; i++) {
+            targets[PackedMove.from(scratchMoves[i])] |= Bitboards.bit(PackedMove.to(scratchMoves[i]));
+        }
     }
 
     /**
@@ -102,26 +391,30 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        if (board.getPiece(move.getStartPosition()) == null) {
+        if (!onBoard(move.getStartPosition()) || !onBoard(move.getEndPosition())) {
             throw new InvalidMoveException("Move not valid");
         }
-        Collection<ChessMove> validMoves = validMoves(move.getStartPosition());
-        if (teamColor != board.getPiece(move.getStartPosition()).getTeamColor()) {
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        if (piece == null || teamColor != piece.getTeamColor()) {
             throw new InvalidMoveException("Move not valid");
         }
-        if (validMoves == null) {
-            throw new InvalidMoveException("Move not valid");
-        }
-        if (validMoves.contains(move)) {
-            movePiece(move, board);
-        } else {
-            throw new InvalidMoveException("Move not valid");
-        }
-        if (teamColor ==  TeamColor.WHITE) {
-            setTeamTurn(TeamColor.BLACK);
-        } else {
-            setTeamTurn(TeamColor.WHITE);
+
+        // find the generated move so the flags the board needs come with it
+        int requested = PackedMove.encode(move);
+        int[] moves = new int[MAX_PIECE_MOVES];
+        int count = pieceMoves(piece, PackedMove.from(requested), moves);
+        for (int i = 0; i < count; i++) {
+            if (PackedMove.sameMove(moves[i], requested) && isLegal(moves[i])) {
+                applyMove(moves[i]);
+                return;
+            }
         }
+        throw new InvalidMoveException("Move not valid");
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
     }
 
     /**
@@ -131,56 +424,16 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPos = findKing(teamColor);
-
-        for (int x = 1; x <= 8; x++) {
-            for (int y = 1; y <= 8; y++) {
-                ChessPosition currentPos = new ChessPosition(x, y);
-                ChessPiece piece = board.getPiece(currentPos);
-                if (piece != null) {
-                    if (piece.getTeamColor() != teamColor) {
-                        if (piece.pieceMoves(board, currentPos).contains(new ChessMove(currentPos, kingPos, null)) || piece.pieceMoves(board, currentPos).contains(new ChessMove(currentPos, kingPos, ChessPiece.PieceType.QUEEN))) {
-                            return true;
-                        }
-                    }
-                }
-            }
+        int kingSquare = board.getKingSquare(teamColor);
+        if (kingSquare < 0) {
+            return false;
         }
-        return false;
+        return board.isSquareAttacked(kingSquare, teamColor.opponent());
     }
 
 
     public ChessPosition findKing(TeamColor teamColor) {
-        for (int x = 1; x <= 8; x++) {
-            for (int y = 1; y <= 8; y++) {
-                ChessPosition position = new ChessPosition(x, y);
-                if (board.getPiece(position) != null) {
-                    if (board.getPiece(position).getPieceType() == ChessPiece.PieceType.KING) {
-                        if (teamColor == board.getPiece(position).getTeamColor()) {
-                            return position;
-                        }
-                    }
-                }
-
-            }
-        }
-        // won't be reached
-        return null;
-    }
-
-    private boolean hasNoValidMove(TeamColor teamColor) {
-        for (int x = 1; x <= 8; x++) {
-            for (int y = 1; y <= 8; y++) {
-                if (board.getPiece(new ChessPosition(x, y)) != null) {
-                    if  (teamColor == board.getPiece(new ChessPosition(x, y)).getTeamColor()) {
-                        if (!validMoves(new ChessPosition(x, y)).isEmpty()) {
-                            return false;
-                        }
-                    }
-                }
-            }
-        }
-        return true;
+        return board.getKingPosition(teamColor);
     }
 
     /**
@@ -190,7 +443,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        return isInCheck(teamColor) && hasNoValidMove(teamColor);
+        return getGameStatus(teamColor) == GameStatus.CHECKMATE;
     }
 
     /**
@@ -201,20 +454,186 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
-        } else {
-            return hasNoValidMove(teamColor);
+        return getGameStatus(teamColor) == GameStatus.STALEMATE;
+    }
+
+    /**
+     * @return the status of the team whose turn it is
+     */
+    public GameStatus getGameStatus() {
+        return getGameStatus(teamColor);
+    }
+
+    /**
+     * Works out whether a team is in check, checkmate or stalemate in a single pass, stopping at
+     * the first legal move found. The result is kept until the board changes, so asking for
+     * checkmate and then stalemate after a move only does the work once.
+     *
+     * @param teamColor which team to get the status of
+     * @return the team's current status
+     */
+    public GameStatus getGameStatus(TeamColor teamColor) {
+        if (statusBoard != board || statusModCount != board.getModCount()) {
+            statusBoard = board;
+            statusModCount = board.getModCount();
+            statusCache[0] = null;
+            statusCache[1] = null;
         }
+        GameStatus status = statusCache[teamColor.ordinal()];
+        if (status == null) {
+            boolean inCheck = isInCheck(teamColor);
+            boolean hasMove = LegalMoveGenerator.hasLegalMove(board, teamColor, enPassantSquare(teamColor),
+                    scratchMoves);
+            if (hasMove) {
+                status = inCheck ? GameStatus.CHECK : GameStatus.ONGOING;
+            } else {
+                status = inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+            }
+            statusCache[teamColor.ordinal()] = status;
+        }
+        return status;
     }
 
     /**
-     * Sets this game's chessboard with a given board
+     * Gets a 64-bit key for the position, suitable for position caches and repetition checks.
+     * It covers the pieces, whose turn it is, castling rights and en passant; the piece part is
+     * kept up to date by the board on every change, so this is a handful of XORs.
+     *
+     * @return Zobrist key of the current position
+     */
+    public long getZobristKey() {
+        return positionKey();
+    }
+
+    // getZobristKey for the history, which constructors fill in and so can't call overridable methods
+    private long positionKey() {
+        return board.getZobristKey() ^ Zobrist.side(teamColor) ^ Zobrist.castling(castlingRights)
+                ^ Zobrist.enPassant(capturableEnPassantSquare());
+    }
+
+    /**
+     * @return the en passant square if a pawn of the team to move can actually capture onto it,
+     * otherwise -1, so an unusable en passant square doesn't make two positions hash differently
+     */
+    private int capturableEnPassantSquare() {
+        if (enPassantSquare < 0) {
+            return -1;
+        }
+        long capturers = MoveGenerator.pawnAttacks(teamColor.opponent(), enPassantSquare)
+                & board.getPieces(teamColor, ChessPiece.PieceType.PAWN);
+        return capturers != 0 ? enPassantSquare : -1;
+    }
+
+    /**
+     * Sets this game's chessboard with a given board. A king and rook still on their starting
+     * squares are taken to have not moved, so they keep the right to castle. Like
+     * {@link #setTeamTurn}, this clears the undo stack and the repetition history.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        castlingRights = homeCastlingRights(board);
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        resetHistory();
+    }
+
+    private static int homeCastlingRights(ChessBoard board) {
+        int rights = 0;
+        for (TeamColor color : TeamColor.values()) {
+            int king = color == TeamColor.WHITE ? 4 : 60;
+            if ((board.getPieces(color, ChessPiece.PieceType.KING) & Bitboards.bit(king)) == 0) {
+                continue;
+            }
+            long rooks = board.getPieces(color, ChessPiece.PieceType.ROOK);
+            int kingside = color == TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+            int queenside = color == TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+            rights |= (rooks & Bitboards.bit(king + 3)) != 0 ? kingside : 0;
+            rights |= (rooks & Bitboards.bit(king - 4)) != 0 ? queenside : 0;
+        }
+        return rights;
+    }
+
+    // used by PositionCodec to restore a whole decoded position at once
+    void setPosition(ChessBoard board, TeamColor turn, int castlingRights, int enPassantSquare, int halfmoveClock) {
+        this.board = board;
+        teamColor = turn;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        resetHistory();
+    }
+
+    // starts the move history over from the current position
+    private void resetHistory() {
+        undoCount = 0;
+        historyBase = 0;
+        // the turn or the rights may have changed without the board, so the status has to be redone
+        statusBoard = null;
+        keyHistory[0] = positionKey();
+    }
+
+    /**
+     * @return castling rights as a mix of {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE},
+     * {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square a pawn could capture onto en passant, or -1 if none
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * @return number of moves since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Looks back over the moves made since the last capture or pawn move, every other ply since
+     * the same side has to be moving, so the cost is bounded by the halfmove clock and nothing is
+     * kept beyond one key per move on the undo stack.
+     *
+     * @return how many times the current position has occurred, counting this time
+     */
+    public int getRepetitionCount() {
+        long key = getZobristKey();
+        int count = 1;
+        int top = historyBase + undoCount;
+        int reach = Math.min(halfmoveClock, top);
+        for (int back = 2; back <= reach; back += 2) {
+            if (keyHistory[top - back] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // room in the key history, for checking it stays bounded by the undo stack
+    int historyCapacity() {
+        return keyHistory.length;
+    }
+
+    /**
+     * @return true if the current position has occurred at least three times, so a draw can be claimed
+     */
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 3;
+    }
+
+    /**
+     * @return true if fifty moves by each side have passed without a capture or pawn move,
+     * so a draw can be claimed
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
     }
 
     /**
@@ -226,6 +645,40 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * @return the position packed into {@link PositionCodec#GAME_BYTES} bytes
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[PositionCodec.GAME_BYTES];
+        PositionCodec.encodeGame(this, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Rebuilds a game from {@link #toBytes()}, with its move history starting at that position
+     *
+     * @throws IllegalArgumentException if the bytes don't hold a valid position
+     */
+    public static ChessGame fromBytes(byte[] bytes) {
+        return PositionCodec.decodeGame(bytes, 0);
+    }
+
+    /**
+     * @return the position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.toFen(this);
+    }
+
+    /**
+     * Builds a game from a FEN position, see {@link Fen}
+     *
+     * @throws IllegalArgumentException if the text isn't a valid FEN position
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        return Fen.parse(fen);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -237,6 +690,7 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamColor, getBoard());
+        // equals only looks at the turn and the board, so leave castling and en passant out
+        return Long.hashCode(board.getZobristKey() ^ Zobrist.side(teamColor));
     }
 }
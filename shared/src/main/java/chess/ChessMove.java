@@ -48,6 +48,9 @@ public class ChessMove {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -57,7 +60,9 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        // same value as Objects.hash(startPosition, endPosition, promotionPiece) without the varargs array
+        return 31 * (31 * (31 + Objects.hashCode(startPosition)) + Objects.hashCode(endPosition))
+                + Objects.hashCode(promotionPiece);
     }
 
     @Override
@@ -1,8 +1,8 @@
 package chess;
 
-import java.util.*;
-
-import static java.lang.Math.abs;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -15,12 +15,39 @@ public class ChessPiece {
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
+    // most moves a single piece can have, a queen in the middle of an empty board has 27
+    private static final int MAX_PIECE_MOVES = 32;
+
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[Bitboards.pieceIndex(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
 
     public ChessPiece(ChessGame.TeamColor pieceColor, PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance for a colored piece kind. Pieces are immutable, so the same
+     * instance can sit on any number of squares and be compared by reference.
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[Bitboards.pieceIndex(pieceColor, type)];
+    }
+
+    /**
+     * @return the shared instance for a piece index, see {@link Bitboards#pieceIndex}
+     */
+    public static ChessPiece of(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -55,163 +82,34 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        ChessPiece piece = board.getPiece(myPosition);
-
-        return switch (piece.getPieceType()) {
-            case KING -> kingRules(board, myPosition);
-            case QUEEN -> queenRules(board, myPosition);
-            case BISHOP -> bishopRules(board, myPosition);
-            case ROOK -> rookRules(board, myPosition);
-            case KNIGHT -> knightRules(board, myPosition);
-            case PAWN -> pawnRules(board, myPosition, piece);
-        };
-    }
-
-    private boolean inBounds(int x, int y) {
-        return x > 0 && x <= 8 && y > 0 && y <= 8;
-    }
-
-    private boolean isEmpty(int x, int y, ChessBoard board) {
-        return board.getPiece(new ChessPosition(x, y)) == null;
-    }
-
-    private boolean isSameTeam(ChessBoard board, ChessPosition myPosition, int x, int y) {
-        if (board.getPiece(new ChessPosition(x, y)) != null) {  // safety in case getPiece returns null
-            return board.getPiece(new ChessPosition(myPosition.getRow(), myPosition.getColumn())).getTeamColor() != board.getPiece(new ChessPosition(x, y)).getTeamColor();
-        }
-        return true;
-    }
-
-
-    private ArrayList<ChessMove> getSlidingMoves(int x, int y, int[][] directions, ChessBoard board) {
-        ArrayList<ChessMove> possibleMoves = new ArrayList<>();
+        int[] moves = new int[MAX_PIECE_MOVES];
+        int count = pieceMoves(board, Bitboards.square(myPosition), moves, 0);
 
-        for (int[] dir : directions) {
-            // sets up the piece to move in the correct direction
-            int dx = dir[0];
-            int dy = dir[1];
-
-            // initial location once the first directional change
-            int nx = x + dx;
-            int ny = y + dy;
-
-            while (inBounds(nx, ny)) {
-                if (isEmpty(nx, ny, board)) {
-                    possibleMoves.add(new ChessMove(new ChessPosition(x, y), new ChessPosition(nx, ny), null));
-                } else if (board.getPiece(new ChessPosition(x, y)).getTeamColor() != board.getPiece(new ChessPosition(nx, ny)).getTeamColor()) {
-                    possibleMoves.add(new ChessMove(new ChessPosition(x, y), new ChessPosition(nx, ny), null));
-                    break;
-                } else {
-                    break;
-                }
-
-                // changes the location but still following the direction until the end or a block
-                nx += dx;
-                ny += dy;
-            }
+        ArrayList<ChessMove> possibleMoves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            possibleMoves.add(PackedMove.toChessMove(moves[i]));
         }
-
         return possibleMoves;
     }
 
-    private Collection<ChessMove> bishopRules(ChessBoard board, ChessPosition myPosition) {
-        // directions a piece can move in, does allow the continuation of the direction
-        int[][] direction = new int[][]{{1, 1}, {-1, 1}, {1, -1}, {-1, -1}};
-        return getSlidingMoves(myPosition.getRow(), myPosition.getColumn(), direction, board);
-    }
-
-    private Collection<ChessMove> rookRules(ChessBoard board, ChessPosition myPosition) {
-        int[][] direction = new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-        return getSlidingMoves(myPosition.getRow(), myPosition.getColumn(), direction, board);
-    }
-
-    private Collection<ChessMove> kingRules(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> possibleMoves = new ArrayList<>();
-        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-
-        return getChessMoves(board, myPosition, possibleMoves, directions);
-    }
-
-    private Collection<ChessMove> queenRules(ChessBoard board, ChessPosition myPosition) {
-        int[][] direction = new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, 1}, {1, -1}, {-1, -1}};
-        return getSlidingMoves(myPosition.getRow(), myPosition.getColumn(), direction, board);
-    }
-
-    private Collection<ChessMove> knightRules(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> possibleMoves = new ArrayList<>();
-        int[][] offsets = {
-                {2, 1}, {1, 2}, {-1, 2}, {-2, 1},
-                {-2, -1}, {-1, -2}, {1, -2}, {2, -1}
-        };
-
-        return getChessMoves(board, myPosition, possibleMoves, offsets);
-    }
-
-    private Collection<ChessMove> getChessMoves(ChessBoard board, ChessPosition myPosition, ArrayList<ChessMove> possibleMoves, int[][] offsets) {
-        for (int[] offset : offsets) {
-            int nx = myPosition.getRow() + offset[0];
-            int ny = myPosition.getColumn() + offset[1];
-            if (inBounds(nx, ny) && isSameTeam(board, myPosition, nx, ny)) {
-                possibleMoves.add(new ChessMove(myPosition, new ChessPosition(nx, ny), null));
-            }
-        }
-        return possibleMoves;
-    }
-
-    private ChessMove pawnPromotion(ChessPosition myPosition, int direction, PieceType pieceType, int y) {
-        return new ChessMove(myPosition, new ChessPosition(myPosition.getRow() + direction, y), pieceType);
-    }
-
-    private void pawnCapture(ChessBoard board, ChessPosition myPosition, int direction, int endRow, ArrayList<ChessMove> possibleMoves) {
-        for (int dy = -1; dy <= 1; dy += 2) {
-            int nx = myPosition.getRow() + direction;
-            int ny = myPosition.getColumn() + dy;
-            if (inBounds(nx, ny) && !isEmpty(nx, ny, board) && isSameTeam(board, myPosition, nx, ny)) {
-
-                if (myPosition.getRow() == endRow) {
-                    PieceType[] promotionOptions = {PieceType.QUEEN, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK};
-                    for (PieceType promotion : promotionOptions) {
-                            possibleMoves.add(pawnPromotion(new ChessPosition(myPosition.getRow(), myPosition.getColumn()), direction, promotion, ny));
-                    }
-
-                } else {
-                    possibleMoves.add(new ChessMove(myPosition, new ChessPosition(nx, ny), null));
-                }
-            }
-        }
-    }
-
-    private Collection<ChessMove> pawnRules(ChessBoard board, ChessPosition myPosition, ChessPiece piece) {
-        ArrayList<ChessMove> possibleMoves = new ArrayList<>();
-        int direction = piece.getTeamColor().equals(ChessGame.TeamColor.BLACK) ? -1 : 1;
-        int startRow = piece.getTeamColor().equals(ChessGame.TeamColor.BLACK) ? 7 : 2;
-        int endRow = piece.getTeamColor().equals(ChessGame.TeamColor.WHITE) ? 7 : 2;
-
-        if (isEmpty(myPosition.getRow() + direction, myPosition.getColumn(), board)) {
-
-            if (myPosition.getRow() == endRow) {
-                PieceType[] promotionOptions = {PieceType.QUEEN, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK};
-                for (PieceType promotion : promotionOptions) {
-                        possibleMoves.add(pawnPromotion(myPosition, direction, promotion, myPosition.getColumn()));
-                }
-
-            } else {
-                possibleMoves.add(new ChessMove(myPosition, new ChessPosition(myPosition.getRow() + direction, myPosition.getColumn()), null));
-                if (myPosition.getRow() == startRow && isEmpty(myPosition.getRow() + 2 * direction, myPosition.getColumn(), board)) {
-                    possibleMoves.add(new ChessMove(myPosition, new ChessPosition(myPosition.getRow() + 2 * direction, myPosition.getColumn()), null));
-                }
-            }
-
-        }
-
-        pawnCapture(board, myPosition, direction, endRow, possibleMoves);
-
-
-        return possibleMoves;
+    /**
+     * Same as {@link #pieceMoves(ChessBoard, ChessPosition)} but writes {@link PackedMove}
+     * ints into a reusable buffer instead of allocating ChessMoves
+     *
+     * @param square square index of the piece, see {@link Bitboards}
+     * @param moves  buffer to write into
+     * @param count  number of moves already in the buffer
+     * @return the new number of moves in the buffer
+     */
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int count) {
+        return MoveGenerator.generate(board, square, moves, count);
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -221,6 +119,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        // same value as Objects.hash(pieceColor, type) without allocating the varargs array
+        return 31 * (31 + Objects.hashCode(pieceColor)) + Objects.hashCode(type);
     }
 }
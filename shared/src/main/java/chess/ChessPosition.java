@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -10,12 +8,43 @@ import java.util.Objects;
  */
 public class ChessPosition {
 
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new ChessPosition(Bitboards.row(square), Bitboards.column(square));
+        }
+    }
+
     private final int row;
     private final int col;
+    // cached like String.hashCode; stays 0 for instances Gson builds without calling the constructor
+    private transient int hash;
 
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
+        this.hash = computeHash();
+    }
+
+    /**
+     * Gets the shared instance for a position on the board, so positions can be compared by
+     * reference and don't need to be allocated
+     *
+     * @return the shared position, or a new one if the row or column is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return POSITIONS[Bitboards.square(row, col)];
+    }
+
+    /**
+     * @return the shared position for a square index, see {@link Bitboards}
+     */
+    public static ChessPosition of(int square) {
+        return POSITIONS[square];
     }
 
     /**
@@ -36,6 +65,9 @@ public class ChessPosition {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -45,7 +77,17 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        int h = hash;
+        if (h == 0) {
+            h = computeHash();
+            hash = h;
+        }
+        return h;
+    }
+
+    // same value Objects.hash(row, col) gives, without boxing the arguments
+    private int computeHash() {
+        return 31 * (31 + row) + col;
     }
 
     @Override
@@ -0,0 +1,321 @@
+package chess;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * <p>
+ * Parsing works straight off a CharSequence or an ASCII byte buffer, so positions can be read out
+ * of a larger file or network buffer without cutting them into Strings first, and
+ * {@link #load(ChessGame, CharSequence, int, int)} reuses an existing game so bulk loading doesn't
+ * allocate per position. The halfmove and fullmove fields may be left off, as in EPD.
+ * <p>
+ * ChessGame doesn't count full moves, so the fullmove number is checked but not kept, and
+ * written positions always say move 1.
+ */
+public final class Fen {
+
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // FEN letter for each Bitboards.pieceIndex
+    private static final char[] PIECE_CHARS = {'K', 'Q', 'B', 'N', 'R', 'P', 'k', 'q', 'b', 'n', 'r', 'p'};
+    // piece index + 1 for each ASCII letter, 0 if it isn't a piece
+    private static final byte[] PIECE_CODES = new byte[128];
+    private static final char[] CASTLING_CHARS = {'K', 'Q', 'k', 'q'};
+    private static final int[] CASTLING_BITS = {
+            ChessGame.WHITE_KINGSIDE, ChessGame.WHITE_QUEENSIDE, ChessGame.BLACK_KINGSIDE, ChessGame.BLACK_QUEENSIDE
+    };
+
+    static {
+        for (int i = 0; i < PIECE_CHARS.length; i++) {
+            PIECE_CODES[PIECE_CHARS[i]] = (byte) (i + 1);
+        }
+    }
+
+    private Fen() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text isn't a valid FEN position
+     */
+    public static ChessGame parse(CharSequence fen) {
+        return parse(fen, 0, fen.length());
+    }
+
+    /**
+     * Parses the FEN in [start, end) of the text
+     *
+     * @throws IllegalArgumentException if the text isn't a valid FEN position
+     */
+    public static ChessGame parse(CharSequence fen, int start, int end) {
+        ChessGame game = new ChessGame();
+        load(game, fen, start, end);
+        return game;
+    }
+
+    /**
+     * Parses the ASCII FEN in [start, end) of the buffer
+     *
+     * @throws IllegalArgumentException if the bytes aren't a valid FEN position
+     */
+    public static ChessGame parse(byte[] fen, int start, int end) {
+        return parse(new AsciiSequence(fen), start, end);
+    }
+
+    /**
+     * Sets an existing game to the FEN in [start, end) of the text, reusing its board. The game's
+     * move history starts over at the new position.
+     *
+     * @throws IllegalArgumentException if the text isn't a valid FEN position, in which case
+     *                                  the game is left unchanged
+     */
+    public static void load(ChessGame game, CharSequence fen, int start, int end) {
+        // check everything before touching the board so a bad position can't leave it half set
+        int index = skipBoard(fen, start, end);
+        index = expect(fen, index, end, ' ');
+        ChessGame.TeamColor turn = switch (charAt(fen, index++, end)) {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw error("Bad side to move", index - 1);
+        };
+        index = expect(fen, index, end, ' ');
+
+        int castlingRights = 0;
+        if (charAt(fen, index, end) == '-') {
+            index++;
+        } else {
+            int first = index;
+            while (index < end && fen.charAt(index) != ' ') {
+                int bit = castlingBit(fen.charAt(index));
+                if (bit == 0 || (castlingRights & bit) != 0) {
+                    throw error("Bad castling rights", index);
+                }
+                castlingRights |= bit;
+                index++;
+            }
+            if (index == first) {
+                throw error("Missing castling rights", index);
+            }
+        }
+        index = expect(fen, index, end, ' ');
+
+        int enPassantSquare = -1;
+        if (charAt(fen, index, end) == '-') {
+            index++;
+        } else {
+            int file = charAt(fen, index, end) - 'a';
+            int rank = charAt(fen, index + 1, end) - '1';
+            if (file < 0 || file > 7 || (rank != 2 && rank != 5)) {
+                throw error("Bad en passant square", index);
+            }
+            enPassantSquare = rank * 8 + file;
+            index += 2;
+        }
+
+        int halfmoveClock = 0;
+        if (index < end) {
+            index = expect(fen, index, end, ' ');
+            int numberEnd = numberEnd(fen, index, end);
+            halfmoveClock = parseNumber(fen, index, numberEnd);
+            index = numberEnd;
+            if (index < end) {
+                index = expect(fen, index, end, ' ');
+                numberEnd = numberEnd(fen, index, end);
+                if (parseNumber(fen, index, numberEnd) < 1) {
+                    throw error("Bad fullmove number", index);
+                }
+                index = numberEnd;
+            }
+        }
+        if (index != end) {
+            throw error("Unexpected text after position", index);
+        }
+
+        ChessBoard board = game.getBoard();
+        fillBoard(board, fen, start);
+        game.setPosition(board, turn, castlingRights, enPassantSquare, halfmoveClock);
+    }
+
+    /**
+     * @return the game's position as a FEN string
+     */
+    public static String toFen(ChessGame game) {
+        StringBuilder out = new StringBuilder(90);
+        write(game, out);
+        return out.toString();
+    }
+
+    /**
+     * Appends the game's position as FEN
+     */
+    public static void write(ChessGame game, StringBuilder out) {
+        ChessBoard board = game.getBoard();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(PIECE_CHARS[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())]);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+
+        out.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        int castlingRights = game.getCastlingRights();
+        if (castlingRights == 0) {
+            out.append('-');
+        }
+        for (int i = 0; i < CASTLING_BITS.length; i++) {
+            if ((castlingRights & CASTLING_BITS[i]) != 0) {
+                out.append(CASTLING_CHARS[i]);
+            }
+        }
+
+        out.append(' ');
+        int enPassantSquare = game.getEnPassantSquare();
+        if (enPassantSquare < 0) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + (enPassantSquare & 7))).append((char) ('1' + (enPassantSquare >>> 3)));
+        }
+        out.append(' ').append(game.getHalfmoveClock()).append(" 1");
+    }
+
+    // checks the piece placement field and returns the index just past it
+    private static int skipBoard(CharSequence fen, int index, int end) {
+        for (int row = 8; row >= 1; row--) {
+            int col = 1;
+            while (col <= 8) {
+                char c = charAt(fen, index, end);
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else if (c < 128 && PIECE_CODES[c] != 0) {
+                    col++;
+                } else {
+                    throw error("Bad piece placement", index);
+                }
+                index++;
+            }
+            if (col != 9) {
+                throw error("Rank " + row + " is the wrong length", index - 1);
+            }
+            if (row > 1) {
+                index = expect(fen, index, end, '/');
+            }
+        }
+        return index;
+    }
+
+    // places the pieces from an already checked placement field
+    private static void fillBoard(ChessBoard board, CharSequence fen, int index) {
+        for (int row = 8; row >= 1; row--) {
+            int square = (row - 1) * 8;
+            int rowEnd = square + 8;
+            while (square < rowEnd) {
+                char c = fen.charAt(index++);
+                if (c <= '8') {
+                    for (int i = c - '0'; i > 0; i--) {
+                        board.addPiece(square++, null);
+                    }
+                } else {
+                    board.addPiece(square++, ChessPiece.of(PIECE_CODES[c] - 1));
+                }
+            }
+            // skip the '/'
+            index++;
+        }
+    }
+
+    private static int castlingBit(char c) {
+        for (int i = 0; i < CASTLING_CHARS.length; i++) {
+            if (CASTLING_CHARS[i] == c) {
+                return CASTLING_BITS[i];
+            }
+        }
+        return 0;
+    }
+
+    private static int numberEnd(CharSequence fen, int index, int end) {
+        while (index < end && fen.charAt(index) != ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    private static int parseNumber(CharSequence fen, int start, int end) {
+        if (start == end || end - start > 6) {
+            throw error("Bad move counter", start);
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9') {
+                throw error("Bad move counter", i);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int expect(CharSequence fen, int index, int end, char expected) {
+        if (charAt(fen, index, end) != expected) {
+            throw error("Expected '" + expected + "'", index);
+        }
+        return index + 1;
+    }
+
+    private static char charAt(CharSequence fen, int index, int end) {
+        if (index >= end) {
+            throw error("FEN ends too soon", index);
+        }
+        return fen.charAt(index);
+    }
+
+    private static IllegalArgumentException error(String message, int index) {
+        return new IllegalArgumentException(message + " at index " + index);
+    }
+
+    /**
+     * Reads ASCII bytes as chars in place, so byte buffers go through the same parser
+     */
+    private static final class AsciiSequence implements CharSequence {
+
+        private final byte[] bytes;
+
+        AsciiSequence(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of a game's position, safe to hand to any number of threads at once.
+ * <p>
+ * A {@link ChessGame} is changed in place, and even validMoves plays each move out on the board,
+ * so another thread reading or serializing it can catch the board halfway through a move. The
+ * writer instead takes a snapshot after each move and publishes it; the snapshot keeps the
+ * {@link PositionCodec} bytes of the game and is never written again, so readers need no locks.
+ * A new position always gets a new array rather than changing the old one, and at 36 bytes the
+ * copy costs less than sharing parts of it would.
+ */
+public final class GameSnapshot {
+
+    private final byte[] bytes;
+    private final long zobristKey;
+    private final ChessGame.GameStatus status;
+
+    private GameSnapshot(byte[] bytes, long zobristKey, ChessGame.GameStatus status) {
+        this.bytes = bytes;
+        this.zobristKey = zobristKey;
+        this.status = status;
+    }
+
+    /**
+     * Copies the game's current position. Must be called by the thread changing the game, or
+     * with the game otherwise kept still.
+     */
+    public static GameSnapshot of(ChessGame game) {
+        byte[] bytes = new byte[PositionCodec.GAME_BYTES];
+        PositionCodec.encodeGame(game, bytes, 0);
+        return new GameSnapshot(bytes, game.getZobristKey(), game.getGameStatus());
+    }
+
+    /**
+     * @return the piece on the square, or null if it is empty
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        return getPiece(Bitboards.square(position));
+    }
+
+    /**
+     * @param square square index, see {@link Bitboards}
+     */
+    public ChessPiece getPiece(int square) {
+        return PositionCodec.pieceAt(bytes, 0, square);
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return (bytes[32] & 1) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    /**
+     * @return see {@link ChessGame#getCastlingRights()}
+     */
+    public int getCastlingRights() {
+        return (bytes[32] & 0xFF) >>> 1;
+    }
+
+    /**
+     * @return the square a pawn could capture onto en passant, or -1 if none
+     */
+    public int getEnPassantSquare() {
+        return (bytes[33] & 0xFF) - 1;
+    }
+
+    public int getHalfmoveClock() {
+        return (bytes[34] & 0xFF) << 8 | bytes[35] & 0xFF;
+    }
+
+    /**
+     * @return the status of the team to move when the snapshot was taken
+     */
+    public ChessGame.GameStatus getGameStatus() {
+        return status;
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return a new game at this position, owned by the caller, with its move history starting here
+     */
+    public ChessGame toGame() {
+        return PositionCodec.decodeGame(bytes, 0);
+    }
+
+    /**
+     * @return a copy of the {@link PositionCodec#GAME_BYTES} bytes
+     */
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    public String toFen() {
+        return toGame().toFen();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GameSnapshot other && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristKey);
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
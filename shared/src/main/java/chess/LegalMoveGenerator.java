@@ -0,0 +1,181 @@
+package chess;
+
+/**
+ * Generates only legal moves, without playing each candidate to see if it leaves the king in check.
+ * <p>
+ * Pinned pieces and the squares that answer a check are worked out once per position: a pinned
+ * piece may only move along the line through its king and pinner, and while in check every
+ * non-king move has to capture the checker or block its ray. King moves are tested against
+ * attacks with the king lifted off the board so it can't hide behind itself on a checking ray.
+ * En passant is the exception: it takes two pawns off one row, so each capture is checked with
+ * the occupancy it leaves behind.
+ */
+public final class LegalMoveGenerator {
+
+    private LegalMoveGenerator() {
+    }
+
+    /**
+     * Writes every legal move for a team into the buffer as {@link PackedMove} ints
+     *
+     * @param moves buffer to write into, {@link MoveGenerator#MAX_MOVES} long is always enough
+     * @param count number of moves already in the buffer
+     * @return the new number of moves in the buffer
+     */
+    public static int generate(ChessBoard board, ChessGame.TeamColor color, int[] moves, int count) {
+        return generate(board, color, 0, -1, moves, count, false);
+    }
+
+    /**
+     * Same as {@link #generate(ChessBoard, ChessGame.TeamColor, int[], int)}, adding castling and
+     * en passant
+     *
+     * @param castlingRights  see {@link ChessGame#getCastlingRights()}
+     * @param enPassantSquare see {@link ChessGame#getEnPassantSquare()}
+     */
+    public static int generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                               int[] moves, int count) {
+        return generate(board, color, castlingRights, enPassantSquare, moves, count, false);
+    }
+
+    /**
+     * Stops as soon as one legal move turns up, which is all checkmate and stalemate need
+     *
+     * @param scratch buffer to generate into, {@link MoveGenerator#MAX_MOVES} long is always enough
+     * @return true if the team has at least one legal move
+     */
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color, int[] scratch) {
+        return generate(board, color, 0, -1, scratch, 0, true) > 0;
+    }
+
+    /**
+     * Same as {@link #hasLegalMove(ChessBoard, ChessGame.TeamColor, int[])}, counting an en passant
+     * capture; castling never matters here since the king could always step toward the rook instead
+     */
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color, int enPassantSquare,
+                                       int[] scratch) {
+        return generate(board, color, 0, enPassantSquare, scratch, 0, true) > 0;
+    }
+
+    private static int generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                                int[] moves, int count, boolean firstOnly) {
+        int start = count;
+        int king = board.getKingSquare(color);
+        if (king < 0) {
+            // nothing can be put in check, so every move is legal
+            count = MoveGenerator.generate(board, color, moves, count);
+            return MoveGenerator.enPassantMoves(board, color, enPassantSquare, moves, count);
+        }
+        ChessGame.TeamColor them = color.opponent();
+        long occupied = board.getOccupancy();
+        long own = board.getOccupancy(color);
+
+        count = kingMoves(board, king, them, occupied, own, moves, count);
+        if (firstOnly && count > start) {
+            return count;
+        }
+        count = enPassantMoves(board, color, king, them, enPassantSquare, moves, count);
+        if (firstOnly && count > start) {
+            return count;
+        }
+
+        long checkers = board.attackersTo(king, them, occupied);
+        if (Long.bitCount(checkers) > 1) {
+            // only the king can get out of a double check
+            return count;
+        }
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+        if (checkers == 0) {
+            count = MoveGenerator.castlingMoves(board, color, castlingRights, moves, count);
+        }
+        long pinned = pinnedPieces(board, king, them, occupied, own);
+
+        long pieces = own & ~Bitboards.bit(king);
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            long allowed = checkMask;
+            if ((pinned & Bitboards.bit(from)) != 0) {
+                allowed &= Bitboards.line(king, from);
+            }
+            count = filter(moves, count, MoveGenerator.generate(board, from, moves, count), allowed);
+            if (firstOnly && count > start) {
+                return count;
+            }
+        }
+        return count;
+    }
+
+    private static int kingMoves(ChessBoard board, int king, ChessGame.TeamColor them, long occupied, long own,
+                                 int[] moves, int count) {
+        long enemies = board.getOccupancy(them);
+        long withoutKing = occupied & ~Bitboards.bit(king);
+        long targets = MoveGenerator.kingAttacks(king) & ~own;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (board.attackersTo(to, them, withoutKing) == 0) {
+                int flags = (enemies & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0;
+                moves[count++] = PackedMove.encode(king, to, 0, flags);
+            }
+        }
+        return count;
+    }
+
+    private static int enPassantMoves(ChessBoard board, ChessGame.TeamColor color, int king,
+                                      ChessGame.TeamColor them, int enPassantSquare, int[] moves, int count) {
+        int end = MoveGenerator.enPassantMoves(board, color, enPassantSquare, moves, count);
+        if (end == count) {
+            return count;
+        }
+        long victim = Bitboards.bit(enPassantSquare + (color == ChessGame.TeamColor.WHITE ? -8 : 8));
+        long occupied = board.getOccupancy();
+        int kept = count;
+        for (int i = count; i < end; i++) {
+            long after = (occupied ^ Bitboards.bit(PackedMove.from(moves[i])) ^ victim) | Bitboards.bit(enPassantSquare);
+            // the captured pawn no longer attacks anything, but every other attacker still counts
+            if ((board.attackersTo(king, them, after) & ~victim) == 0) {
+                moves[kept++] = moves[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * @return our pieces that are the only thing standing between our king and an enemy slider
+     */
+    private static long pinnedPieces(ChessBoard board, int king, ChessGame.TeamColor them, long occupied, long own) {
+        long enemies = board.getOccupancy(them);
+        long queens = board.getPieces(them, ChessPiece.PieceType.QUEEN);
+        // look through our own pieces for sliders lined up with the king
+        long pinners = (SlidingAttacks.rookAttacks(king, enemies)
+                & (board.getPieces(them, ChessPiece.PieceType.ROOK) | queens))
+                | (SlidingAttacks.bishopAttacks(king, enemies)
+                & (board.getPieces(them, ChessPiece.PieceType.BISHOP) | queens));
+
+        long pinned = 0;
+        while (pinners != 0) {
+            long blockers = Bitboards.between(king, Long.numberOfTrailingZeros(pinners)) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+            pinners &= pinners - 1;
+        }
+        return pinned;
+    }
+
+    // keeps the moves in [start, end) that land on an allowed square, compacting them in place
+    private static int filter(int[] moves, int start, int end, long allowed) {
+        int count = start;
+        for (int i = start; i < end; i++) {
+            if ((allowed & Bitboards.bit(PackedMove.to(moves[i]))) != 0) {
+                moves[count++] = moves[i];
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,232 @@
+package chess;
+
+/**
+ * Pseudo-legal move generation that writes {@link PackedMove} ints into a caller supplied buffer.
+ * <p>
+ * Like {@link ChessPiece#pieceMoves}, moves that leave the king in danger are not filtered out.
+ * Nothing is allocated while generating, so the same buffer can be reused across positions.
+ */
+public final class MoveGenerator {
+
+    /**
+     * Buffer size that fits every move for one side in any reachable position
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final int[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN.ordinal() + 1,
+            ChessPiece.PieceType.BISHOP.ordinal() + 1,
+            ChessPiece.PieceType.KNIGHT.ordinal() + 1,
+            ChessPiece.PieceType.ROOK.ordinal() + 1
+    };
+
+    static {
+        int[][] knightOffsets = {{2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}};
+        int[][] kingOffsets = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        int[][] whitePawnOffsets = {{1, -1}, {1, 1}};
+        int[][] blackPawnOffsets = {{-1, -1}, {-1, 1}};
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = offsetSet(square, knightOffsets);
+            KING_ATTACKS[square] = offsetSet(square, kingOffsets);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = offsetSet(square, whitePawnOffsets);
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = offsetSet(square, blackPawnOffsets);
+        }
+    }
+
+    private MoveGenerator() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return squares a pawn of the given color attacks diagonally from the square
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * @return squares a non-pawn piece of the given type attacks from the square
+     */
+    public static long attacks(ChessPiece.PieceType type, int square, long occupied) {
+        return switch (type) {
+            case KING -> KING_ATTACKS[square];
+            case QUEEN -> SlidingAttacks.queenAttacks(square, occupied);
+            case BISHOP -> SlidingAttacks.bishopAttacks(square, occupied);
+            case ROOK -> SlidingAttacks.rookAttacks(square, occupied);
+            case KNIGHT -> KNIGHT_ATTACKS[square];
+            case PAWN -> 0;
+        };
+    }
+
+    /**
+     * Generates moves for every piece of one team
+     *
+     * @param moves buffer to write into, {@link #MAX_MOVES} long is always enough
+     * @param count number of moves already in the buffer
+     * @return the new number of moves in the buffer
+     */
+    public static int generate(ChessBoard board, ChessGame.TeamColor color, int[] moves, int count) {
+        long pieces = board.getOccupancy(color);
+        while (pieces != 0) {
+            count = generate(board, Long.numberOfTrailingZeros(pieces), moves, count);
+            pieces &= pieces - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Generates moves for the piece on a single square
+     *
+     * @return the new number of moves in the buffer, unchanged if the square is empty
+     */
+    public static int generate(ChessBoard board, int square, int[] moves, int count) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null) {
+            return count;
+        }
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long occupied = board.getOccupancy();
+        long enemies = board.getOccupancy(color.opponent());
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            return pawnMoves(color, square, occupied, enemies, moves, count);
+        }
+
+        long targets = attacks(piece.getPieceType(), square, occupied) & ~board.getOccupancy(color);
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int flags = (enemies & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0;
+            moves[count++] = PackedMove.encode(square, to, 0, flags);
+            targets &= targets - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Generates the castling moves a team's rights allow. Unlike other pseudo-legal moves these are
+     * only written when the king isn't in check and doesn't pass through or land on an attacked
+     * square, since playing the move out can't show that.
+     *
+     * @param castlingRights mix of the {@link ChessGame#WHITE_KINGSIDE} style bits
+     * @return the new number of moves in the buffer
+     */
+    public static int castlingMoves(ChessBoard board, ChessGame.TeamColor color, int castlingRights,
+                                    int[] moves, int count) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int rights = castlingRights & (white ? ChessGame.WHITE_KINGSIDE | ChessGame.WHITE_QUEENSIDE
+                : ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE);
+        int king = white ? 4 : 60;
+        if (rights == 0 || (board.getPieces(color, ChessPiece.PieceType.KING) & Bitboards.bit(king)) == 0
+                || board.isSquareAttacked(king, color.opponent())) {
+            return count;
+        }
+        if ((rights & (ChessGame.WHITE_KINGSIDE | ChessGame.BLACK_KINGSIDE)) != 0) {
+            count = castle(board, color, king, king + 3, king + 2, moves, count);
+        }
+        if ((rights & (ChessGame.WHITE_QUEENSIDE | ChessGame.BLACK_QUEENSIDE)) != 0) {
+            count = castle(board, color, king, king - 4, king - 2, moves, count);
+        }
+        return count;
+    }
+
+    private static int castle(ChessBoard board, ChessGame.TeamColor color, int king, int rook, int to,
+                              int[] moves, int count) {
+        if ((board.getPieces(color, ChessPiece.PieceType.ROOK) & Bitboards.bit(rook)) == 0
+                || (board.getOccupancy() & Bitboards.between(king, rook)) != 0) {
+            return count;
+        }
+        int step = to > king ? 1 : -1;
+        if (board.isSquareAttacked(king + step, color.opponent()) || board.isSquareAttacked(to, color.opponent())) {
+            return count;
+        }
+        moves[count++] = PackedMove.encode(king, to, 0, PackedMove.CASTLE);
+        return count;
+    }
+
+    /**
+     * Generates captures onto the en passant square for the pawns of a team that can reach it
+     *
+     * @param enPassantSquare square behind the pawn that just moved two squares, or -1 for none
+     * @return the new number of moves in the buffer
+     */
+    public static int enPassantMoves(ChessBoard board, ChessGame.TeamColor color, int enPassantSquare,
+                                     int[] moves, int count) {
+        if (enPassantSquare < 0) {
+            return count;
+        }
+        int victim = enPassantSquare + (color == ChessGame.TeamColor.WHITE ? -8 : 8);
+        if ((board.getPieces(color.opponent(), ChessPiece.PieceType.PAWN) & Bitboards.bit(victim)) == 0) {
+            return count;
+        }
+        long capturers = PAWN_ATTACKS[color.opponent().ordinal()][enPassantSquare]
+                & board.getPieces(color, ChessPiece.PieceType.PAWN);
+        while (capturers != 0) {
+            moves[count++] = PackedMove.encode(Long.numberOfTrailingZeros(capturers), enPassantSquare, 0,
+                    PackedMove.EN_PASSANT);
+            capturers &= capturers - 1;
+        }
+        return count;
+    }
+
+    private static int pawnMoves(ChessGame.TeamColor color, int square, long occupied, long enemies,
+                                 int[] moves, int count) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int forward = white ? 8 : -8;
+        int startRow = white ? 2 : 7;
+        long promotionRank = white ? Bitboards.RANK_8 : Bitboards.RANK_1;
+
+        int to = square + forward;
+        if (to >= 0 && to < 64 && (occupied & Bitboards.bit(to)) == 0) {
+            if ((promotionRank & Bitboards.bit(to)) != 0) {
+                count = addPromotions(square, to, 0, moves, count);
+            } else {
+                moves[count++] = PackedMove.encode(square, to, 0, 0);
+                int doubleTo = to + forward;
+                if (Bitboards.row(square) == startRow && (occupied & Bitboards.bit(doubleTo)) == 0) {
+                    moves[count++] = PackedMove.encode(square, doubleTo, 0, PackedMove.DOUBLE_PUSH);
+                }
+            }
+        }
+
+        long captures = PAWN_ATTACKS[color.ordinal()][square] & enemies;
+        while (captures != 0) {
+            int target = Long.numberOfTrailingZeros(captures);
+            if ((promotionRank & Bitboards.bit(target)) != 0) {
+                count = addPromotions(square, target, PackedMove.CAPTURE, moves, count);
+            } else {
+                moves[count++] = PackedMove.encode(square, target, 0, PackedMove.CAPTURE);
+            }
+            captures &= captures - 1;
+        }
+        return count;
+    }
+
+    private static int addPromotions(int from, int to, int flags, int[] moves, int count) {
+        for (int promotion : PROMOTIONS) {
+            moves[count++] = PackedMove.encode(from, to, promotion, flags);
+        }
+        return count;
+    }
+
+    private static long offsetSet(int square, int[][] offsets) {
+        long set = 0;
+        for (int[] offset : offsets) {
+            int row = Bitboards.row(square) + offset[0];
+            int col = Bitboards.column(square) + offset[1];
+            if (row > 0 && row <= 8 && col > 0 && col <= 8) {
+                set |= Bitboards.bit(Bitboards.square(row, col));
+            }
+        }
+        return set;
+    }
+}
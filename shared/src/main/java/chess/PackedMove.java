@@ -0,0 +1,78 @@
+package chess;
+
+/**
+ * Encodes a move as a single int so move lists can live in reusable int buffers.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square (see {@link Bitboards}),
+ * bits 12-14 the promotion piece (PieceType ordinal + 1, or 0 for none) and
+ * bits 15-18 the flags below.
+ */
+public final class PackedMove {
+
+    public static final int CAPTURE = 1;
+    public static final int DOUBLE_PUSH = 2;
+    public static final int EN_PASSANT = 4;
+    public static final int CASTLE = 8;
+
+    // from, to and promotion; two moves with the same bits here are the same ChessMove
+    private static final int MOVE_MASK = 0x7FFF;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int encode(int from, int to, int promotion, int flags) {
+        return from | (to << 6) | (promotion << 12) | (flags << 15);
+    }
+
+    /**
+     * Packs a ChessMove; flags are left empty since they depend on the board
+     */
+    public static int encode(ChessMove move) {
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return encode(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                promotion == null ? 0 : promotion.ordinal() + 1, 0);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return PieceType ordinal + 1 of the promotion piece, or 0 if the move doesn't promote
+     */
+    public static int promotion(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+    public static ChessPiece.PieceType promotionPiece(int move) {
+        int promotion = promotion(move);
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static int flags(int move) {
+        return move >>> 15;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & (CAPTURE | EN_PASSANT)) != 0;
+    }
+
+    /**
+     * @return true if both moves have the same start, end and promotion, ignoring flags
+     */
+    public static boolean sameMove(int a, int b) {
+        return ((a ^ b) & MOVE_MASK) == 0;
+    }
+
+    /**
+     * @return a ChessMove view of the packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), promotionPiece(move));
+    }
+}
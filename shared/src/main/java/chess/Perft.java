@@ -0,0 +1,79 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft"). The counts for
+ * well-known positions are published, so this checks move generation for correctness, and
+ * timing it measures raw move generation speed.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * @return number of move sequences of exactly the given length from the game's position
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return perft(game, depth, new int[depth][MoveGenerator.MAX_MOVES], 0);
+    }
+
+    /**
+     * Splits the perft count by first move, which narrows down where two move generators disagree
+     *
+     * @return node count below each legal move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        int[][] buffers = new int[Math.max(depth, 1)][MoveGenerator.MAX_MOVES];
+        int[] moves = buffers[0];
+        int count = game.legalMoves(game.getTeamTurn(), moves);
+        for (int i = 0; i < count; i++) {
+            game.applyMove(moves[i]);
+            long nodes = depth <= 1 ? 1 : perft(game, depth - 1, buffers, 1);
+            game.undoMove();
+            counts.put(PackedMove.toChessMove(moves[i]), nodes);
+        }
+        return counts;
+    }
+
+    private static long perft(ChessGame game, int depth, int[][] buffers, int ply) {
+        int[] moves = buffers[ply];
+        int count = game.legalMoves(game.getTeamTurn(), moves);
+        if (depth == 1) {
+            // every legal move is a leaf, no need to play them
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.applyMove(moves[i]);
+            nodes += perft(game, depth - 1, buffers, ply + 1);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Prints the divide and the speed for the starting position, e.g. {@code Perft 5}
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        ChessGame game = new ChessGame();
+
+        long start = System.nanoTime();
+        long total = 0;
+        for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("nodes: %d, time: %.3f s, %.0f nodes/s%n",
+                total, elapsed / 1e9, total / (elapsed / 1e9));
+    }
+}
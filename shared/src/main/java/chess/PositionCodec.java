@@ -0,0 +1,100 @@
+package chess;
+
+/**
+ * Packs a position into a fixed 36 bytes for storage and sending over the network.
+ * <p>
+ * Bytes 0-31 hold one nibble per square, a1 first and the lower nibble first within each
+ * byte: 0 for an empty square, otherwise the {@link Bitboards#pieceIndex} + 1. Byte 32 has the
+ * team to move in bit 0 and the castling rights in bits 1-4, byte 33 the en passant square + 1
+ * (0 for none) and bytes 34-35 the halfmove clock, high byte first.
+ */
+public final class PositionCodec {
+
+    public static final int BOARD_BYTES = 32;
+    public static final int GAME_BYTES = 36;
+
+    private PositionCodec() {
+    }
+
+    /**
+     * Writes the board's pieces into {@link #BOARD_BYTES} bytes of the buffer
+     */
+    public static void encodeBoard(ChessBoard board, byte[] out, int offset) {
+        for (int i = 0; i < BOARD_BYTES; i++) {
+            out[offset + i] = (byte) (nibble(board.getPiece(2 * i)) | nibble(board.getPiece(2 * i + 1)) << 4);
+        }
+    }
+
+    /**
+     * Reads a board written by {@link #encodeBoard}
+     *
+     * @throws IllegalArgumentException if a square holds an unknown piece code
+     */
+    public static ChessBoard decodeBoard(byte[] in, int offset) {
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < BOARD_BYTES; i++) {
+            int packed = in[offset + i] & 0xFF;
+            board.addPiece(2 * i, piece(packed & 0xF));
+            board.addPiece(2 * i + 1, piece(packed >>> 4));
+        }
+        return board;
+    }
+
+    /**
+     * Writes the whole game state into {@link #GAME_BYTES} bytes of the buffer
+     */
+    public static void encodeGame(ChessGame game, byte[] out, int offset) {
+        encodeBoard(game.getBoard(), out, offset);
+        int state = (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0) | game.getCastlingRights() << 1;
+        int halfmoveClock = Math.min(game.getHalfmoveClock(), 0xFFFF);
+        out[offset + 32] = (byte) state;
+        out[offset + 33] = (byte) (game.getEnPassantSquare() + 1);
+        out[offset + 34] = (byte) (halfmoveClock >>> 8);
+        out[offset + 35] = (byte) halfmoveClock;
+    }
+
+    /**
+     * Reads a game written by {@link #encodeGame}. The decoded game starts its move history
+     * at this position.
+     *
+     * @throws IllegalArgumentException if the bytes don't hold a valid position
+     */
+    public static ChessGame decodeGame(byte[] in, int offset) {
+        if (in.length - offset < GAME_BYTES) {
+            throw new IllegalArgumentException("Encoded game needs " + GAME_BYTES + " bytes");
+        }
+        int state = in[offset + 32] & 0xFF;
+        int enPassantSquare = (in[offset + 33] & 0xFF) - 1;
+        if (state > 0x1F || enPassantSquare > 63) {
+            throw new IllegalArgumentException("Bad encoded game state");
+        }
+        ChessGame.TeamColor teamTurn = (state & 1) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        // the square a pawn skipped is on row 3 after a white push, with black to move, or row 6
+        int enPassantRow = teamTurn == ChessGame.TeamColor.BLACK ? 3 : 6;
+        if (enPassantSquare >= 0 && Bitboards.row(enPassantSquare) != enPassantRow) {
+            throw new IllegalArgumentException("Bad en passant square " + enPassantSquare);
+        }
+        return new ChessGame(decodeBoard(in, offset), teamTurn,
+                state >>> 1, enPassantSquare, (in[offset + 34] & 0xFF) << 8 | in[offset + 35] & 0xFF);
+    }
+
+    /**
+     * Reads one square of a board written by {@link #encodeBoard} without decoding the rest
+     *
+     * @throws IllegalArgumentException if the square holds an unknown piece code
+     */
+    static ChessPiece pieceAt(byte[] in, int offset, int square) {
+        return piece((in[offset + (square >>> 1)] >>> ((square & 1) * 4)) & 0xF);
+    }
+
+    private static int nibble(ChessPiece piece) {
+        return piece == null ? 0 : Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType()) + 1;
+    }
+
+    private static ChessPiece piece(int nibble) {
+        if (nibble > 12) {
+            throw new IllegalArgumentException("Bad piece code " + nibble);
+        }
+        return nibble == 0 ? null : ChessPiece.of(nibble - 1);
+    }
+}
@@ -0,0 +1,148 @@
+package chess;
+
+/**
+ * Precomputed magic bitboard attack tables for rooks and bishops.
+ * <p>
+ * For each square the blockers on the relevant rays are multiplied by a magic
+ * number so the top bits of the product index straight into a table of attack
+ * sets, replacing a square-by-square ray walk with a mask, a multiply and a lookup.
+ * Tables are filled once when the class is loaded.
+ */
+public final class SlidingAttacks {
+
+    private static final long[] ROOK_MAGICS = {
+            0x318000C001908024L, 0x5040004010002000L, 0x0200104020820008L, 0x3D80180004801000L,
+            0x1080080080040102L, 0x2100020801000400L, 0x0C0000900812190CL, 0x0600082409004082L,
+            0x0160800032824000L, 0x4840804000802003L, 0x3682802000100080L, 0x8842001200084022L,
+            0x0040800400800800L, 0x2021000400030008L, 0x0261000402000100L, 0x4040802100004080L,
+            0x0080014001A00044L, 0x0010810040082502L, 0x400081801000A001L, 0x8408420020120008L,
+            0x0120818008002400L, 0x0404008004020080L, 0x0000040022011028L, 0x800C020000B40041L,
+            0x000340028000A088L, 0x0820002040005008L, 0x200184C2001200A0L, 0x00018A020010A042L,
+            0x8000080080800400L, 0x0080020080040080L, 0xC104085400100201L, 0x4840040200004081L,
+            0x004030400080008AL, 0x0400400101002080L, 0x0000809002802000L, 0x0602800802801000L,
+            0x0004000801010010L, 0x0800800400800200L, 0x4506000102000804L, 0x2200800040800100L,
+            0x2A00802040008000L, 0x9000201000404000L, 0x3030200010008080L, 0x1408201001010009L,
+            0x0020050008010011L, 0x2050041020080140L, 0x0080100801040002L, 0x0000008C08420021L,
+            0xA000204000801C80L, 0x400080C000600180L, 0x4020100820008080L, 0x00100022100B0100L,
+            0x4084800802040080L, 0x1780020004008080L, 0x0040100822410400L, 0x0604010084004200L,
+            0x0102008100402016L, 0x0080400100248215L, 0x040041001020000DL, 0x4021002004100009L,
+            0xC012015004882002L, 0xA602000110080402L, 0x8040501808A10204L, 0x8000450024048452L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x2204208802008910L, 0x0E301200B1020004L, 0x0008024408208000L, 0x3028348300080000L,
+            0x01020210C40041C0L, 0x0002080404A0228AL, 0x1204240924100040L, 0x8306921104024001L,
+            0x20805060011414A0L, 0x0208200484108420L, 0x003430289200540CL, 0x8000040400850140L,
+            0x8020420210028000L, 0x1000220804040041L, 0x0000208410080420L, 0x0800002228020822L,
+            0x0040A42008810102L, 0x8268002208114C00L, 0x0001241000420040L, 0x012C820808250000L,
+            0x2001011820080650L, 0x0082000088044200L, 0x4004020080A41000L, 0x6100200300880480L,
+            0x1024358040900403L, 0x0028028808122802L, 0x1401100001040420L, 0x081A008018028122L,
+            0x0090101101004001L, 0x0228020101110084L, 0xC1214D000C008810L, 0xA8021200A0410080L,
+            0x3C02202040100230L, 0x2280D00802042800L, 0x1020203801100180L, 0x8088240108240100L,
+            0x8004110011A40040L, 0x2000840810010100L, 0x800424028A140480L, 0x0008008028410101L,
+            0x00A80E9010000524L, 0x4140410410422010L, 0x7000160101021002L, 0x1722014202006020L,
+            0x00002012A0808402L, 0x00C0010401004022L, 0x0002884800884902L, 0x2802080059000291L,
+            0x0401008804418100L, 0x00820462080C4090L, 0x120B048410880200L, 0x0100200042020145L,
+            0x1A11800810240020L, 0x0000401009024480L, 0x0041108200810000L, 0x0042720805011080L,
+            0x1310440080B01080L, 0x1092202202022036L, 0x4000021200840489L, 0x0411801012104400L,
+            0x0000009C10020210L, 0x0080102002040840L, 0x4880088890040041L, 0x0003101009004180L
+    };
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {-1, 1}, {1, -1}, {-1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            initSquare(square, ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_TABLE);
+            initSquare(square, BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_TABLE);
+        }
+    }
+
+    private SlidingAttacks() {
+    }
+
+    /**
+     * @param square   square index of the rook
+     * @param occupied every occupied square on the board
+     * @return squares a rook attacks from the square, including the first blocker on each ray
+     */
+    public static long rookAttacks(int square, long occupied) {
+        long blockers = occupied & ROOK_MASKS[square];
+        return ROOK_TABLE[square][(int) ((blockers * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * @param square   square index of the bishop
+     * @param occupied every occupied square on the board
+     * @return squares a bishop attacks from the square, including the first blocker on each ray
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        long blockers = occupied & BISHOP_MASKS[square];
+        return BISHOP_TABLE[square][(int) ((blockers * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    private static void initSquare(int square, int[][] directions, long[] magics, long[] masks,
+                                   int[] shifts, long[][] table) {
+        long mask = relevantBlockers(square, directions);
+        int bits = Long.bitCount(mask);
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        table[square] = new long[1 << bits];
+
+        // walk every subset of the mask (carry-rippler) and store its attack set
+        long subset = 0;
+        do {
+            int index = (int) ((subset * magics[square]) >>> (64 - bits));
+            table[square][index] = slowAttacks(square, subset, directions);
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+    }
+
+    // squares whose occupancy can change the attack set, which excludes the last square of each ray
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] dir : directions) {
+            int row = Bitboards.row(square) + dir[0];
+            int col = Bitboards.column(square) + dir[1];
+            while (inBounds(row + dir[0], col + dir[1])) {
+                mask |= Bitboards.bit(Bitboards.square(row, col));
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slowAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] dir : directions) {
+            int row = Bitboards.row(square) + dir[0];
+            int col = Bitboards.column(square) + dir[1];
+            while (inBounds(row, col)) {
+                long bit = Bitboards.bit(Bitboards.square(row, col));
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean inBounds(int row, int col) {
+        return row > 0 && row <= 8 && col > 0 && col <= 8;
+    }
+}
@@ -0,0 +1,62 @@
+package chess;
+
+/**
+ * Packs everything needed to take back a move into a single long, so {@link ChessGame}
+ * can keep its undo stack in a plain long[].
+ * <p>
+ * Bits 0-18 hold the {@link PackedMove}, bits 19-22 the index of the moved piece,
+ * bits 23-26 the captured piece index + 1 (0 for no capture, and the pawn beside the end
+ * square for en passant), bits 27-30 the castling rights, bits 31-37 the en passant
+ * square + 1 and bits 38-63 the halfmove clock from before the move.
+ */
+final class UndoRecord {
+
+    // undoMove has to give back the exact clock, repetition checks scan back that far
+    static final int MAX_HALFMOVE_CLOCK = (1 << 26) - 1;
+
+    private UndoRecord() {
+    }
+
+    static long pack(int move, ChessPiece moved, ChessPiece captured, int castlingRights, int enPassantSquare,
+                     int halfmoveClock) {
+        if (halfmoveClock < 0 || halfmoveClock > MAX_HALFMOVE_CLOCK) {
+            throw new IllegalArgumentException("Halfmove clock out of range: " + halfmoveClock);
+        }
+        long capturedCode = captured == null ? 0
+                : Bitboards.pieceIndex(captured.getTeamColor(), captured.getPieceType()) + 1;
+        return (move & 0x7FFFFL)
+                | ((long) Bitboards.pieceIndex(moved.getTeamColor(), moved.getPieceType()) << 19)
+                | (capturedCode << 23)
+                | ((long) castlingRights << 27)
+                | ((long) (enPassantSquare + 1) << 31)
+                | ((long) halfmoveClock << 38);
+    }
+
+    static int move(long undo) {
+        return (int) (undo & 0x7FFFF);
+    }
+
+    static ChessPiece movedPiece(long undo) {
+        return ChessPiece.of((int) (undo >>> 19) & 0xF);
+    }
+
+    /**
+     * @return the captured piece, or null if the move didn't capture
+     */
+    static ChessPiece capturedPiece(long undo) {
+        int code = (int) (undo >>> 23) & 0xF;
+        return code == 0 ? null : ChessPiece.of(code - 1);
+    }
+
+    static int castlingRights(long undo) {
+        return (int) (undo >>> 27) & 0xF;
+    }
+
+    static int enPassantSquare(long undo) {
+        return ((int) (undo >>> 31) & 0x7F) - 1;
+    }
+
+    static int halfmoveClock(long undo) {
+        return (int) (undo >>> 38);
+    }
+}
@@ -0,0 +1,73 @@
+package chess;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of the keys for each
+ * piece on its square plus the side to move, castling rights and en passant file, so making
+ * a move only has to XOR out what changed and XOR in what replaced it.
+ * <p>
+ * The keys come from a fixed seed, so the same position has the same key in every run.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long BLACK_TO_MOVE;
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        long state = 0x2405_1969_C0FF_EE00L;
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                squares[square] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+        // no rights at all keeps a zero key, so boards without castling hash the same as before
+        for (int rights = 1; rights < 16; rights++) {
+            state += 0x9E3779B97F4A7C15L;
+            CASTLING[rights] = mix(state);
+        }
+        for (int file = 0; file < 8; file++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_FILE[file] = mix(state);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param pieceIndex see {@link Bitboards#pieceIndex}
+     */
+    public static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex][square];
+    }
+
+    public static long piece(ChessPiece piece, int square) {
+        return PIECE_SQUARE[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    public static long side(ChessGame.TeamColor toMove) {
+        return toMove == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0;
+    }
+
+    public static long castling(int castlingRights) {
+        return CASTLING[castlingRights];
+    }
+
+    /**
+     * @param square en passant target square, or -1 for none
+     */
+    public static long enPassant(int square) {
+        return square < 0 ? 0 : EN_PASSANT_FILE[square & 7];
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,330 @@
+package engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * The material of an endgame table, named like "KQvKR", and the mapping between positions with
+ * that material and table indexes.
+ * <p>
+ * Pieces are numbered in the order white king, black king, then the other white pieces and the
+ * other black pieces, strongest first. An index packs the side to move, the white king folded
+ * onto files a-d (the board is mirrored left to right when it stands on e-h), and the square of
+ * every other piece, so a table holds 2 * 32 * 64^(pieces - 1) entries. Every position whose
+ * side letters are swapped, "KRvKQ" for "KQvKR", is looked up with the colors flipped instead.
+ */
+public final class Endgame {
+
+    public static final int MAX_PIECES = 4;
+
+    // piece letters strongest first, the order pieces are listed in within a side
+    private static final String LETTERS = "QRBNP";
+    private static final ChessPiece.PieceType[] TYPES = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.PAWN
+    };
+
+    private final String name;
+    private final ChessGame.TeamColor[] colors;
+    private final ChessPiece.PieceType[] types;
+    private final int size;
+
+    private Endgame(String white, String black) {
+        name = "K" + white + "vK" + black;
+        int count = 2 + white.length() + black.length();
+        colors = new ChessGame.TeamColor[count];
+        types = new ChessPiece.PieceType[count];
+        colors[0] = ChessGame.TeamColor.WHITE;
+        colors[1] = ChessGame.TeamColor.BLACK;
+        types[0] = ChessPiece.PieceType.KING;
+        types[1] = ChessPiece.PieceType.KING;
+        for (int i = 0; i < white.length() + black.length(); i++) {
+            boolean isWhite = i < white.length();
+            char letter = isWhite ? white.charAt(i) : black.charAt(i - white.length());
+            colors[i + 2] = isWhite ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            types[i + 2] = TYPES[LETTERS.indexOf(letter)];
+        }
+        size = 64 << (6 * (count - 1));
+    }
+
+    /**
+     * @param name material like "KQvKR", in either order and with the pieces of a side in any order
+     * @return the endgame, with the sides swapped if the name lists them the other way around
+     * @throws IllegalArgumentException if the name isn't valid, has fewer than 3 pieces or more
+     *                                  than {@link #MAX_PIECES}
+     */
+    public static Endgame of(String name) {
+        int split = name.indexOf('v');
+        if (split < 1 || name.charAt(0) != 'K' || split + 1 >= name.length() || name.charAt(split + 1) != 'K') {
+            throw new IllegalArgumentException("Not an endgame: " + name);
+        }
+        String white = sortSide(name.substring(1, split), name);
+        String black = sortSide(name.substring(split + 2), name);
+        int count = 2 + white.length() + black.length();
+        if (count < 3 || count > MAX_PIECES) {
+            throw new IllegalArgumentException("Endgames have 3 to " + MAX_PIECES + " pieces: " + name);
+        }
+        return isFlipped(white, black) ? new Endgame(black, white) : new Endgame(white, black);
+    }
+
+    /**
+     * @return name of the endgame the board's material belongs to, which may list the sides the
+     * other way around from {@link #name()}, or null if the board has only kings or more than
+     * {@link #MAX_PIECES} pieces
+     */
+    public static String nameOf(ChessBoard board) {
+        int count = Long.bitCount(board.getOccupancy());
+        if (count < 3 || count > MAX_PIECES) {
+            return null;
+        }
+        return "K" + side(board, ChessGame.TeamColor.WHITE) + "vK" + side(board, ChessGame.TeamColor.BLACK);
+    }
+
+    /**
+     * Counts the board's material into one number, a nibble per {@link Bitboards#pieceIndex}, so
+     * the endgame a position belongs to can be found without building its name
+     *
+     * @return the material signature, comparable with {@link #signature(boolean)}
+     */
+    public static long signature(ChessBoard board) {
+        long signature = 0;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                long count = Math.min(Long.bitCount(board.getPieces(color, type)), 15);
+                signature |= count << (4 * Bitboards.pieceIndex(color, type));
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * @param flipped true for the material with the colors swapped
+     * @return the material signature of this endgame, see {@link #signature(ChessBoard)}
+     */
+    public long signature(boolean flipped) {
+        long signature = 0;
+        for (int i = 0; i < types.length; i++) {
+            ChessGame.TeamColor color = flipped ? colors[i].opponent() : colors[i];
+            signature += 1L << (4 * Bitboards.pieceIndex(color, types[i]));
+        }
+        return signature;
+    }
+
+    /**
+     * @return true if the name lists the sides the other way around from the endgame's table, so
+     * the colors have to be flipped to look its positions up
+     */
+    public static boolean isFlipped(String name) {
+        int split = name.indexOf('v');
+        return isFlipped(name.substring(1, split), name.substring(split + 2));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int pieceCount() {
+        return types.length;
+    }
+
+    public ChessGame.TeamColor color(int piece) {
+        return colors[piece];
+    }
+
+    public ChessPiece.PieceType type(int piece) {
+        return types[piece];
+    }
+
+    /**
+     * @return number of entries in the endgame's table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param squares     square of each piece, in this endgame's piece order
+     * @param blackToMove side to move
+     * @return the table index of the position
+     */
+    public int index(int[] squares, boolean blackToMove) {
+        int mirror = (squares[0] & 7) >= 4 ? 7 : 0;
+        int king = squares[0] ^ mirror;
+        int index = (blackToMove ? 32 : 0) + (king >>> 3) * 4 + (king & 7);
+        for (int i = 1; i < types.length; i++) {
+            index = index * 64 + (squares[i] ^ mirror);
+        }
+        return index;
+    }
+
+    /**
+     * Works out the index of a board holding this endgame's material straight from its pieces,
+     * the same as {@link #squares} followed by {@link #index(int[], boolean)} but without an array
+     *
+     * @param flipped     see {@link #squares}
+     * @param blackToMove side to move in this endgame's colors
+     */
+    public int index(ChessBoard board, boolean flipped, boolean blackToMove) {
+        int flip = flipped ? 56 : 0;
+        int whiteKing = square(board, 0, flipped) ^ flip;
+        int mirror = (whiteKing & 7) >= 4 ? 7 : 0;
+        int king = whiteKing ^ mirror;
+        int index = (blackToMove ? 32 : 0) + (king >>> 3) * 4 + (king & 7);
+        for (int i = 1; i < types.length; i++) {
+            index = index * 64 + (square(board, i, flipped) ^ flip ^ mirror);
+        }
+        return index;
+    }
+
+    /**
+     * Reverses {@link #index}, with the white king always on files a-d
+     *
+     * @param squares filled with the square of each piece
+     * @return true if black is to move
+     */
+    public boolean decode(int index, int[] squares) {
+        for (int i = types.length - 1; i > 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        squares[0] = ((index >>> 2) & 7) * 8 + (index & 3);
+        return index >= 32;
+    }
+
+    /**
+     * Finds where each of this endgame's pieces stands on a board holding its material
+     *
+     * @param flipped true if the board holds the material with the colors swapped, see
+     *                {@link #isFlipped(String)}; squares are then mirrored top to bottom
+     * @param squares filled with the square of each piece
+     */
+    public void squares(ChessBoard board, boolean flipped, int[] squares) {
+        for (int i = 0; i < types.length; i++) {
+            squares[i] = square(board, i, flipped) ^ (flipped ? 56 : 0);
+        }
+    }
+
+    // where piece i stands on the board, before any flipping
+    private int square(ChessBoard board, int i, boolean flipped) {
+        ChessGame.TeamColor color = flipped ? colors[i].opponent() : colors[i];
+        long pieces = board.getPieces(color, types[i]);
+        // identical pieces take successive squares of the set
+        for (int j = i - 1; j >= 0 && types[j] == types[i] && colors[j] == colors[i]; j--) {
+            pieces &= pieces - 1;
+        }
+        return Long.numberOfTrailingZeros(pieces);
+    }
+
+    /**
+     * Works out the endgame left after one piece is captured or a pawn promotes
+     *
+     * @param removed   piece that is captured, or -1
+     * @param promoted  pawn that promotes, or -1
+     * @param promotion what the pawn becomes
+     * @return the resulting endgame and where its pieces come from, with a null endgame if only
+     * the kings are left
+     */
+    Transition transition(int removed, int promoted, ChessPiece.PieceType promotion) {
+        StringBuilder white = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+        for (int i = 2; i < types.length; i++) {
+            if (i != removed) {
+                ChessPiece.PieceType type = i == promoted ? promotion : types[i];
+                (colors[i] == ChessGame.TeamColor.WHITE ? white : black).append(letter(type));
+            }
+        }
+        if (white.isEmpty() && black.isEmpty()) {
+            return new Transition(null, false, new int[0]);
+        }
+        String whiteSide = sortSide(white.toString(), name);
+        String blackSide = sortSide(black.toString(), name);
+        boolean flipped = isFlipped(whiteSide, blackSide);
+        Endgame target = flipped ? new Endgame(blackSide, whiteSide) : new Endgame(whiteSide, blackSide);
+
+        int[] pieces = new int[target.pieceCount()];
+        boolean[] used = new boolean[types.length];
+        for (int j = 0; j < pieces.length; j++) {
+            ChessGame.TeamColor color = flipped ? target.colors[j].opponent() : target.colors[j];
+            for (int i = 0; i < types.length; i++) {
+                ChessPiece.PieceType type = i == promoted ? promotion : types[i];
+                if (!used[i] && i != removed && colors[i] == color && type == target.types[j]) {
+                    used[i] = true;
+                    pieces[j] = i;
+                    break;
+                }
+            }
+        }
+        return new Transition(target, flipped, pieces);
+    }
+
+    /**
+     * Where a capture or promotion leads
+     *
+     * @param target  endgame the position moves into, or null if only the kings are left
+     * @param flipped true if the target lists the colors the other way around
+     * @param pieces  for each piece of the target, the piece of this endgame it was
+     */
+    record Transition(Endgame target, boolean flipped, int[] pieces) {
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Endgame other && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static String side(ChessBoard board, ChessGame.TeamColor color) {
+        StringBuilder side = new StringBuilder();
+        for (int i = 0; i < TYPES.length; i++) {
+            int count = Long.bitCount(board.getPieces(color, TYPES[i]));
+            side.append(String.valueOf(LETTERS.charAt(i)).repeat(count));
+        }
+        return side.toString();
+    }
+
+    private static char letter(ChessPiece.PieceType type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i] == type) {
+                return LETTERS.charAt(i);
+            }
+        }
+        throw new IllegalArgumentException("Kings aren't listed: " + type);
+    }
+
+    private static String sortSide(String side, String name) {
+        StringBuilder sorted = new StringBuilder(side.length());
+        for (int i = 0; i < LETTERS.length(); i++) {
+            char letter = LETTERS.charAt(i);
+            side.chars().filter(c -> c == letter).forEach(c -> sorted.append(letter));
+        }
+        if (sorted.length() != side.length()) {
+            throw new IllegalArgumentException("Not an endgame: " + name);
+        }
+        return sorted.toString();
+    }
+
+    // the table keeps the side with more pieces, or the stronger pieces, as white
+    private static boolean isFlipped(String white, String black) {
+        if (white.length() != black.length()) {
+            return white.length() < black.length();
+        }
+        for (int i = 0; i < white.length(); i++) {
+            int difference = LETTERS.indexOf(white.charAt(i)) - LETTERS.indexOf(black.charAt(i));
+            if (difference != 0) {
+                return difference > 0;
+            }
+        }
+        return false;
+    }
+}
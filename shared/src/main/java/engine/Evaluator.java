@@ -0,0 +1,35 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+/**
+ * Static evaluation used by {@link Search}. The search tells the evaluator about every move it
+ * makes and takes back, so an implementation can keep running totals instead of looking at
+ * every piece at each leaf. Each search thread needs its own instance.
+ */
+public interface Evaluator {
+
+    /**
+     * Starts over from the game's current position, before a search begins
+     */
+    void reset(ChessGame game);
+
+    /**
+     * Called with each move the search is about to play, while the board still shows the
+     * position before it
+     *
+     * @param move a {@link chess.PackedMove} from the move generator
+     */
+    void push(ChessBoard board, int move);
+
+    /**
+     * Called after the last pushed move has been taken back
+     */
+    void pop();
+
+    /**
+     * @return centipawns in favor of the team to move
+     */
+    int evaluate(ChessBoard board, ChessGame.TeamColor toMove);
+}
@@ -0,0 +1,45 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Evaluates a position by material count alone, counting pieces at each leaf. Mostly useful
+ * as a baseline for other evaluators.
+ */
+public class MaterialEvaluator implements Evaluator {
+
+    // centipawns, indexed by PieceType ordinal; the king is never traded so it counts for nothing
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    @Override
+    public void reset(ChessGame game) {
+    }
+
+    @Override
+    public void push(ChessBoard board, int move) {
+    }
+
+    @Override
+    public void pop() {
+    }
+
+    @Override
+    public int evaluate(ChessBoard board, ChessGame.TeamColor toMove) {
+        return material(board, toMove) - material(board, toMove.opponent());
+    }
+
+    /**
+     * @return total value of a team's pieces in centipawns
+     */
+    public static int material(ChessBoard board, ChessGame.TeamColor color) {
+        int total = 0;
+        for (int type = 1; type < TYPES.length; type++) {
+            total += Long.bitCount(board.getPieces(color, TYPES[type])) * PIECE_VALUES[type];
+        }
+        return total;
+    }
+}
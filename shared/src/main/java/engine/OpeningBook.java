@@ -0,0 +1,209 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveGenerator;
+import chess.PackedMove;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book in the Polyglot layout: 16-byte big-endian entries of position key,
+ * move, weight and a learn field, sorted by key (compared unsigned). Keys are this project's
+ * {@link ChessGame#getZobristKey()}, not Polyglot's own, so books have to be built with
+ * {@link OpeningBookWriter}.
+ * <p>
+ * The file is memory mapped, so opening a book costs nothing up front and the OS keeps the
+ * pages that get used. Lookups binary search the mapping with absolute reads, which makes them
+ * O(log n), allocation free and safe to run from any number of threads.
+ * <p>
+ * Moves use Polyglot's encoding: to file in bits 0-2, to rank in bits 3-5, from file in bits
+ * 6-8, from rank in bits 9-11 and the promotion (1 knight, 2 bishop, 3 rook, 4 queen) in bits
+ * 12-14. Castling is written as the king taking its own rook.
+ */
+public class OpeningBook implements AutoCloseable {
+
+    public static final int ENTRY_BYTES = 16;
+
+    // promotion piece for each Polyglot promotion code
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            null, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN
+    };
+
+    private final FileChannel channel;
+    private final MappedByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(FileChannel channel, MappedByteBuffer entries) {
+        this.channel = channel;
+        this.entries = entries;
+        size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * Maps a book file
+     *
+     * @throws IOException if the file can't be read or isn't a whole number of entries
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            return new OpeningBook(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return number of entries in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the book moves for a position
+     *
+     * @param moves   filled with the Polyglot-encoded moves
+     * @param weights filled with each move's weight
+     * @return number of entries written, at most the length of the buffers
+     */
+    public int probe(long key, int[] moves, int[] weights) {
+        int count = 0;
+        for (int i = firstEntry(key); i < size && count < moves.length && keyAt(i) == key; i++) {
+            moves[count] = moveAt(i);
+            weights[count] = weightAt(i);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Picks a book move for the team to move at random, in proportion to the weights. Entries
+     * that don't match a legal move, which a key collision could produce, are skipped.
+     *
+     * @param scratch buffer for legal moves, {@link MoveGenerator#MAX_MOVES} long
+     * @return the chosen {@link PackedMove}, or 0 if the book has nothing for the position
+     */
+    public int choose(ChessGame game, RandomGenerator random, int[] scratch) {
+        long key = game.getZobristKey();
+        int first = firstEntry(key);
+        int count = game.legalMoves(game.getTeamTurn(), scratch);
+
+        int total = 0;
+        for (int i = first; i < size && keyAt(i) == key; i++) {
+            if (legalMove(moveAt(i), scratch, count) != 0) {
+                total += weightAt(i);
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+        int pick = random.nextInt(total);
+        for (int i = first; i < size && keyAt(i) == key; i++) {
+            int move = legalMove(moveAt(i), scratch, count);
+            if (move != 0) {
+                pick -= weightAt(i);
+                if (pick < 0) {
+                    return move;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Same as {@link #choose(ChessGame, RandomGenerator, int[])} as a ChessMove
+     *
+     * @return the chosen move, or null if the book has nothing for the position
+     */
+    public ChessMove choose(ChessGame game, RandomGenerator random) {
+        int move = choose(game, random, new int[MoveGenerator.MAX_MOVES]);
+        return move == 0 ? null : PackedMove.toChessMove(move);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return the Polyglot encoding of a generated move
+     */
+    public static int encode(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        if ((PackedMove.flags(move) & PackedMove.CASTLE) != 0) {
+            // the king "takes" the rook in the corner it castles toward
+            to = to > from ? to + 1 : to - 2;
+        }
+        int promotion = 0;
+        ChessPiece.PieceType type = PackedMove.promotionPiece(move);
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == type) {
+                promotion = i;
+            }
+        }
+        // rank * 8 + file is the same as our square numbering
+        return to | from << 6 | promotion << 12;
+    }
+
+    // the legal move a book move stands for, or 0 if there isn't one
+    private static int legalMove(int bookMove, int[] moves, int count) {
+        int from = bookMove >>> 6 & 0x3F;
+        int to = bookMove & 0x3F;
+        int promotion = bookMove >>> 12 & 7;
+        ChessPiece.PieceType promotionType = promotion < PROMOTIONS.length ? PROMOTIONS[promotion] : null;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (PackedMove.from(move) != from || PackedMove.promotionPiece(move) != promotionType) {
+                continue;
+            }
+            // castling can be written either way, Polyglot's king-takes-rook or the king's own square
+            boolean castle = (PackedMove.flags(move) & PackedMove.CASTLE) != 0;
+            if (PackedMove.to(move) == to || (castle && encode(move) == bookMove)) {
+                return move;
+            }
+        }
+        return 0;
+    }
+
+    // index of the first entry whose key is not below the given one
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weightAt(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+}
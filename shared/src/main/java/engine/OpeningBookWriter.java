@@ -0,0 +1,160 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveGenerator;
+import chess.PackedMove;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file. Entries for the same position and move are merged by
+ * adding their weights, and the file is written sorted the way the book searches it.
+ * <p>
+ * Run with an input file of games, one per line as moves in coordinate notation
+ * ("e2e4 e7e5 g1f3"), an output path and optionally how many plies of each game to keep:
+ * every position reached in those plies gets the move played from it, weighted by how often it
+ * was played.
+ */
+public class OpeningBookWriter {
+
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private record Entry(long key, int move) {
+    }
+
+    private final Map<Entry, Integer> weights = new HashMap<>();
+
+    /**
+     * Adds a move from a position, or more weight to it if it is already there
+     *
+     * @param move a Polyglot-encoded move, see {@link OpeningBook}
+     */
+    public void add(long key, int move, int weight) {
+        weights.merge(new Entry(key, move), weight, (a, b) -> Math.min(a + b, MAX_WEIGHT));
+    }
+
+    /**
+     * Adds a generated move from the game's current position
+     *
+     * @param move a {@link PackedMove}
+     */
+    public void add(ChessGame game, int move, int weight) {
+        add(game.getZobristKey(), OpeningBook.encode(move), weight);
+    }
+
+    /**
+     * Adds each position of a game with the move played from it, weight 1 apiece
+     *
+     * @param moves moves in coordinate notation, like "e2e4" or "e7e8q"
+     * @param plies how many moves from the start to add
+     * @throws IllegalArgumentException if a move isn't legal in its position
+     */
+    public void addGame(String[] moves, int plies) {
+        ChessGame game = new ChessGame();
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < Math.min(plies, moves.length); i++) {
+            int move = findMove(game, moves[i], legal);
+            add(game, move, 1);
+            game.applyMove(move);
+        }
+    }
+
+    /**
+     * @return number of distinct entries so far
+     */
+    public int size() {
+        return weights.size();
+    }
+
+    public void write(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        List<Map.Entry<Entry, Integer>> sorted = new ArrayList<>(weights.entrySet());
+        sorted.sort((a, b) -> {
+            int byKey = Long.compareUnsigned(a.getKey().key(), b.getKey().key());
+            // heavier moves first within a position, like other Polyglot books
+            return byKey != 0 ? byKey : Integer.compare(b.getValue(), a.getValue());
+        });
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        for (Map.Entry<Entry, Integer> entry : sorted) {
+            out.writeLong(entry.getKey().key());
+            out.writeShort(entry.getKey().move());
+            out.writeShort(entry.getValue());
+            out.writeInt(0);
+        }
+        out.flush();
+    }
+
+    private static int findMove(ChessGame game, String text, int[] legal) {
+        int wanted = parseMove(text);
+        int count = game.legalMoves(game.getTeamTurn(), legal);
+        for (int i = 0; i < count; i++) {
+            if (PackedMove.sameMove(legal[i], wanted)) {
+                return legal[i];
+            }
+        }
+        throw new IllegalArgumentException("Not a legal move: " + text);
+    }
+
+    // coordinate notation to a PackedMove without flags
+    private static int parseMove(String text) {
+        if (text.length() < 4 || text.length() > 5) {
+            throw new IllegalArgumentException("Not a move: " + text);
+        }
+        int from = square(text, 0);
+        int to = square(text, 2);
+        int promotion = 0;
+        if (text.length() == 5) {
+            ChessPiece.PieceType type = switch (text.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Not a move: " + text);
+            };
+            promotion = type.ordinal() + 1;
+        }
+        return PackedMove.encode(from, to, promotion, 0);
+    }
+
+    private static int square(String text, int index) {
+        int file = text.charAt(index) - 'a';
+        int rank = text.charAt(index + 1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            throw new IllegalArgumentException("Not a move: " + text);
+        }
+        return rank * 8 + file;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookWriter <games file> <book file> [plies]");
+            System.exit(1);
+        }
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        OpeningBookWriter writer = new OpeningBookWriter();
+        int games = 0;
+        for (String line : Files.readAllLines(Path.of(args[0]))) {
+            if (!line.isBlank()) {
+                writer.addGame(line.trim().split("\\s+"), plies);
+                games++;
+            }
+        }
+        writer.write(Path.of(args[1]));
+        System.out.printf("%d games, %d book entries%n", games, writer.size());
+    }
+}
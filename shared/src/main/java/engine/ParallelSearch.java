@@ -0,0 +1,178 @@
+package engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Lazy SMP: helper threads search the same root as the main search, each on its own copy of the
+ * game, and all of them share one {@link TranspositionTable}. Nothing else is coordinated; the
+ * helpers fill the table with results the main search then finds instead of searching itself.
+ * Every other helper starts one iteration deeper so the threads don't all walk the same tree in
+ * step.
+ * <p>
+ * The main search runs on the calling thread and its answer is the one returned, with the node
+ * count covering every thread. With one thread there are no helpers, and the result is the same
+ * as a plain {@link Search}. Close it to stop the helper threads.
+ */
+public class ParallelSearch implements AutoCloseable {
+
+    private final TranspositionTable table;
+    private final Search main;
+    private final Search[] helpers;
+    // each helper's own copy of the searched game, reused from one search to the next
+    private final ChessGame[] helperGames;
+    private final ExecutorService pool;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+
+    /**
+     * Uses a thread per available core and a table of the default size
+     */
+    public ParallelSearch() {
+        this(Runtime.getRuntime().availableProcessors(), new TranspositionTable());
+    }
+
+    /**
+     * @param threads total threads to search with, including the caller's
+     * @param table   table the threads share
+     */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        this(threads, table, PieceSquareEvaluator::new);
+    }
+
+    /**
+     * @param threads    total threads to search with, including the caller's
+     * @param table      table the threads share
+     * @param evaluators makes the evaluator for each thread
+     */
+    public ParallelSearch(int threads, TranspositionTable table, Supplier<Evaluator> evaluators) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread");
+        }
+        this.table = table;
+        main = new Search(table, evaluators.get());
+        helpers = new Search[threads - 1];
+        helperGames = new ChessGame[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(table, evaluators.get());
+            helperGames[i] = new ChessGame();
+        }
+        pool = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return total threads searching, including the caller's
+     */
+    public int threads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * Searches the game's position for the team to move. The game itself is only used by the
+     * main search, so it is put back as it was before this returns.
+     *
+     * @param game   game to search, which nothing else may touch until this returns
+     * @param limits when to stop; a node limit counts the main search's nodes
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        AtomicBoolean stop = stopSignal;
+        table.newSearch();
+        try {
+            return helpers.length == 0 ? main.search(game, limits, 1, stop) : searchWithHelpers(game, limits, stop);
+        } finally {
+            // cleared once every thread is done, never at the start, so a stop sent as it starts holds
+            stop.set(false);
+        }
+    }
+
+    private SearchResult searchWithHelpers(ChessGame game, SearchLimits limits, AtomicBoolean stop) {
+        long start = System.nanoTime();
+        // helpers run until the main search is done, only capped by depth
+        SearchLimits helperLimits = SearchLimits.depth(limits.maxDepth());
+        List<Future<SearchResult>> running = new ArrayList<>(helpers.length);
+        for (int i = 0; i < helpers.length; i++) {
+            int index = i;
+            helperGames[i].copyFrom(game);
+            running.add(pool.submit(() -> runHelper(index, helperLimits, stop)));
+        }
+
+        SearchResult result;
+        long nodes = 0;
+        try {
+            result = main.search(game, limits, 1, stop);
+        } finally {
+            // helpers are waited for even if the main search failed, so none outlives the signal
+            stop.set(true);
+            for (Future<SearchResult> helper : running) {
+                nodes += await(helper).nodes();
+            }
+        }
+        nodes += result.nodes();
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // searches the helper's copy of the game, odd helpers starting a ply deeper to spread the work
+    SearchResult runHelper(int index, SearchLimits limits, AtomicBoolean stop) {
+        return helpers[index].search(helperGames[index], limits, 1 + (index & 1), stop);
+    }
+
+    /**
+     * Loads the game into a helper's copy, for running a helper without the main search
+     */
+    void prepareHelper(int index, ChessGame game) {
+        helperGames[index].copyFrom(game);
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can; safe to call from another thread. A stop
+     * sent before a search gets going stops that search, and one sent with no search running
+     * stops the next.
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    /**
+     * Forgets everything learned from earlier searches, as for a new game
+     */
+    public void clear() {
+        main.clear();
+        for (Search helper : helpers) {
+            helper.clearHistory();
+        }
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static SearchResult await(Future<SearchResult> helper) {
+        try {
+            return helper.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for search helper", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Search helper failed", ex.getCause());
+        }
+    }
+}
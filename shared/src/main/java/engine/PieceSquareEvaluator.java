@@ -0,0 +1,222 @@
+package engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PackedMove;
+
+import java.util.Arrays;
+
+/**
+ * Material plus piece-square tables, tapered between a middlegame and an endgame score by how
+ * much material is left, so for instance the king is kept safe early and brought to the center
+ * late.
+ * <p>
+ * Both scores and the game phase are kept as running totals from white's point of view. Each
+ * pushed move adds what it changes onto a stack and each pop drops back a level, so evaluating
+ * a leaf is a blend of two numbers.
+ */
+public class PieceSquareEvaluator implements Evaluator {
+
+    // phase each piece type counts for, by PieceType ordinal; all pieces on the board is 24
+    private static final int[] PHASE = {0, 4, 1, 1, 2, 0};
+    private static final int FULL_PHASE = 24;
+
+    private static final int[] MIDDLEGAME_VALUES = {0, 1025, 365, 337, 477, 82};
+    private static final int[] ENDGAME_VALUES = {0, 936, 297, 281, 512, 94};
+
+    // tables are laid out as the board looks from white's side, rank 8 first
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20,
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20,
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0,
+    };
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+
+    // value of each piece index on each square including material, negated for black
+    private static final int[][] MIDDLEGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        int[][] middlegame = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+        int[][] endgame = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            int t = type.ordinal();
+            int white = Bitboards.pieceIndex(ChessGame.TeamColor.WHITE, type);
+            int black = Bitboards.pieceIndex(ChessGame.TeamColor.BLACK, type);
+            for (int square = 0; square < 64; square++) {
+                // square ^ 56 flips the rank, turning a1-first numbering into the tables' layout
+                MIDDLEGAME[white][square] = MIDDLEGAME_VALUES[t] + middlegame[t][square ^ 56];
+                ENDGAME[white][square] = ENDGAME_VALUES[t] + endgame[t][square ^ 56];
+                MIDDLEGAME[black][square] = -(MIDDLEGAME_VALUES[t] + middlegame[t][square]);
+                ENDGAME[black][square] = -(ENDGAME_VALUES[t] + endgame[t][square]);
+            }
+        }
+    }
+
+    private int[] middlegame = new int[128];
+    private int[] endgame = new int[128];
+    private int[] phase = new int[128];
+    private int top;
+
+    @Override
+    public void reset(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int mg = 0;
+        int eg = 0;
+        int ph = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null) {
+                int index = Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType());
+                mg += MIDDLEGAME[index][square];
+                eg += ENDGAME[index][square];
+                ph += PHASE[piece.getPieceType().ordinal()];
+            }
+        }
+        top = 0;
+        middlegame[0] = mg;
+        endgame[0] = eg;
+        phase[0] = ph;
+    }
+
+    @Override
+    public void push(ChessBoard board, int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        ChessPiece moved = board.getPiece(from);
+        ChessGame.TeamColor color = moved.getTeamColor();
+        int movedIndex = Bitboards.pieceIndex(color, moved.getPieceType());
+
+        int mg = middlegame[top];
+        int eg = endgame[top];
+        int ph = phase[top];
+
+        mg -= MIDDLEGAME[movedIndex][from];
+        eg -= ENDGAME[movedIndex][from];
+        ChessPiece.PieceType promotion = PackedMove.promotionPiece(move);
+        int placedIndex = promotion == null ? movedIndex : Bitboards.pieceIndex(color, promotion);
+        mg += MIDDLEGAME[placedIndex][to];
+        eg += ENDGAME[placedIndex][to];
+        if (promotion != null) {
+            ph += PHASE[promotion.ordinal()];
+        }
+
+        if ((flags & PackedMove.EN_PASSANT) != 0) {
+            int victimSquare = color == ChessGame.TeamColor.WHITE ? to - 8 : to + 8;
+            int victimIndex = Bitboards.pieceIndex(color.opponent(), ChessPiece.PieceType.PAWN);
+            mg -= MIDDLEGAME[victimIndex][victimSquare];
+            eg -= ENDGAME[victimIndex][victimSquare];
+        } else if ((flags & PackedMove.CAPTURE) != 0) {
+            ChessPiece victim = board.getPiece(to);
+            int victimIndex = Bitboards.pieceIndex(victim.getTeamColor(), victim.getPieceType());
+            mg -= MIDDLEGAME[victimIndex][to];
+            eg -= ENDGAME[victimIndex][to];
+            ph -= PHASE[victim.getPieceType().ordinal()];
+        } else if ((flags & PackedMove.CASTLE) != 0) {
+            // the rook jumps to the other side of the king
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            int rookIndex = Bitboards.pieceIndex(color, ChessPiece.PieceType.ROOK);
+            mg += MIDDLEGAME[rookIndex][rookTo] - MIDDLEGAME[rookIndex][rookFrom];
+            eg += ENDGAME[rookIndex][rookTo] - ENDGAME[rookIndex][rookFrom];
+        }
+
+        if (++top == middlegame.length) {
+            middlegame = Arrays.copyOf(middlegame, top * 2);
+            endgame = Arrays.copyOf(endgame, top * 2);
+            phase = Arrays.copyOf(phase, top * 2);
+        }
+        middlegame[top] = mg;
+        endgame[top] = eg;
+        phase[top] = ph;
+    }
+
+    @Override
+    public void pop() {
+        top--;
+    }
+
+    @Override
+    public int evaluate(ChessBoard board, ChessGame.TeamColor toMove) {
+        int ph = Math.min(phase[top], FULL_PHASE);
+        int score = (middlegame[top] * ph + endgame[top] * (FULL_PHASE - ph)) / FULL_PHASE;
+        return toMove == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,450 @@
+package engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveGenerator;
+import chess.PackedMove;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Picks a move with an iterative deepening alpha-beta search (negamax form), finishing each
+ * line with a quiescence search over captures so it doesn't stop in the middle of a trade.
+ * Results are kept in a {@link TranspositionTable}, which may be shared with other searches.
+ * <p>
+ * Moves are tried best-looking first: the table's best move (at the root, the previous
+ * iteration's), then captures and promotions by most valuable victim / least valuable attacker,
+ * then the two killer moves that last caused a cutoff at the same ply, then quiet moves by their
+ * history of cutoffs. Move lists and their ordering scores live in per-ply buffers allocated once, and the
+ * game is searched in place with applyMove/undoMove, so nothing is allocated per node. Leaves
+ * are scored by an {@link Evaluator}, which sees every move made and taken back.
+ * <p>
+ * A Search can be reused for many searches but only runs one at a time.
+ */
+public class Search {
+
+    public static final int MAX_PLY = 64;
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+
+    // how often, in nodes, to look at the clock
+    private static final int CHECK_INTERVAL = 1023;
+
+    // ordering bands, each above anything the one below can score
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int TACTICAL = 1 << 28;
+    private static final int KILLER = 1 << 27;
+    private static final int HISTORY_MAX = 1 << 26;
+
+    // MVV-LVA attacker cost: like PIECE_VALUES, except capturing with the king is tried last
+    private static final int[] ATTACKER_COST = {2000, 900, 330, 320, 500, 100};
+
+    private final int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // cutoff credit per piece index and end square
+    private final int[][] history = new int[12][64];
+    private final TranspositionTable table;
+    private final Evaluator evaluator;
+
+    private ChessGame game;
+    private ChessBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean aborted;
+    // set by stop() to end this search's own runs
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+    // what the running search checks, stopSignal or the one every thread of a parallel search shares
+    private AtomicBoolean activeSignal = stopSignal;
+    private int previousBest;
+    private int rootBest;
+
+    public Search() {
+        this(new TranspositionTable());
+    }
+
+    /**
+     * @param table where to keep search results; searches that share one reuse each other's work
+     */
+    public Search(TranspositionTable table) {
+        this(table, new PieceSquareEvaluator());
+    }
+
+    /**
+     * @param evaluator scores positions for this search only, it can't be shared
+     */
+    public Search(TranspositionTable table, Evaluator evaluator) {
+        this.table = table;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Forgets everything learned from earlier searches, as for a new game
+     */
+    public void clear() {
+        table.clear();
+        clearHistory();
+    }
+
+    // the move ordering half of clear, for searches sharing a table that is cleared once
+    void clearHistory() {
+        for (int[] squares : history) {
+            Arrays.fill(squares, 0);
+        }
+    }
+
+    /**
+     * Searches the game's position for the team to move. The game is changed while the search
+     * runs and put back as it was before this returns.
+     *
+     * @param game   game to search, which nothing else may touch until this returns
+     * @param limits when to stop
+     * @return the best move found by the deepest iteration that finished
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        table.newSearch();
+        try {
+            return search(game, limits, 1, stopSignal);
+        } finally {
+            // cleared once the search is over, never at the start, so a stop sent as it starts holds
+            stopSignal.set(false);
+        }
+    }
+
+    /**
+     * Searches with iterations starting at firstDepth, stopping when the signal is set as well
+     * as at the limits. Lets helpers in a {@link ParallelSearch} start at different depths and
+     * be stopped together. The caller starts the table's new search.
+     */
+    SearchResult search(ChessGame game, SearchLimits limits, int firstDepth, AtomicBoolean stopSignal) {
+        long start = System.nanoTime();
+        activeSignal = stopSignal;
+        this.game = game;
+        board = game.getBoard();
+        nodes = 0;
+        nodeLimit = limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE;
+        deadline = limits.maxMillis() > 0 ? start + limits.maxMillis() * 1_000_000 : Long.MAX_VALUE;
+        aborted = false;
+        prepareTables();
+        evaluator.reset(game);
+
+        ChessGame.TeamColor us = game.getTeamTurn();
+        int count = game.legalMoves(us, moves[0]);
+        if (count == 0) {
+            return new SearchResult(null, game.isInCheck(us) ? -MATE : 0, 0, 0, elapsedMillis(start));
+        }
+
+        int maxDepth = limits.maxDepth() > 0 ? Math.min(limits.maxDepth(), MAX_PLY) : MAX_PLY;
+        int bestMove = moves[0][0];
+        int bestScore = 0;
+        int completedDepth = 0;
+        previousBest = 0;
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+            rootBest = 0;
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (aborted) {
+                // the unfinished iteration tried the previous best first, so any move it
+                // finished and preferred is at least as good
+                if (rootBest != 0) {
+                    bestMove = rootBest;
+                }
+                break;
+            }
+            bestMove = rootBest;
+            bestScore = score;
+            completedDepth = depth;
+            previousBest = rootBest;
+            if (score >= MATE - MAX_PLY) {
+                // iterative deepening finds the shortest mate first
+                break;
+            }
+        }
+        return new SearchResult(PackedMove.toChessMove(bestMove), bestScore, completedDepth, nodes,
+                elapsedMillis(start));
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can; safe to call from another thread. A stop
+     * sent before a search gets going stops that search, and one sent with no search running
+     * stops the next.
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    /**
+     * @return true if the score means one side can force mate
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (ply > 0 && (game.getHalfmoveClock() >= 100 || game.getRepetitionCount() > 1)) {
+            return 0;
+        }
+        ChessGame.TeamColor us = game.getTeamTurn();
+        boolean inCheck = game.isInCheck(us);
+        if (inCheck) {
+            // look one ply further when in check so forced lines aren't cut short
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        long key = game.getZobristKey();
+        int hashMove = 0;
+        long entry = table.probe(key);
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = game.legalMoves(us, list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(ply, count, ply == 0 && previousBest != 0 ? previousBest : hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(ply, i, count);
+            evaluator.push(board, move);
+            game.applyMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            game.undoMove();
+            evaluator.pop();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (ply == 0) {
+                        rootBest = move;
+                    }
+                    if (score >= beta) {
+                        if (!isTactical(move)) {
+                            rememberCutoff(move, ply, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    // mate scores count plies from the root, but the table keeps them as plies from the node
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private int quiesce(int ply, int alpha, int beta) {
+        if (countNode()) {
+            return 0;
+        }
+        ChessGame.TeamColor us = game.getTeamTurn();
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(board, us);
+        }
+        boolean inCheck = game.isInCheck(us);
+        int best = -INFINITY;
+        if (!inCheck) {
+            // standing pat: the side to move doesn't have to capture
+            best = evaluator.evaluate(board, us);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        int[] list = moves[ply];
+        int count = game.legalMoves(us, list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        if (!inCheck) {
+            // every evasion is searched when in check, otherwise only captures and promotions
+            count = keepTactical(list, count);
+        }
+        scoreMoves(ply, count, 0);
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(ply, i, count);
+            evaluator.push(board, move);
+            game.applyMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.undoMove();
+            evaluator.pop();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // counts a node and checks the limits, returning true once the search has to stop
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit
+                || ((nodes & CHECK_INTERVAL) == 0 && (activeSignal.get() || System.nanoTime() >= deadline))) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    private void prepareTables() {
+        for (int[] pair : killers) {
+            Arrays.fill(pair, 0);
+        }
+        // keep some of what earlier searches learned, but let this one outweigh it
+        for (int[] squares : history) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] >>= 1;
+            }
+        }
+    }
+
+    private void scoreMoves(int ply, int count, int firstMove) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        int[] plyKillers = killers[ply];
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            if (move == firstMove) {
+                scores[i] = HASH_MOVE;
+            } else if (isTactical(move)) {
+                scores[i] = TACTICAL + victimValue(move) * 16 - ATTACKER_COST[movedType(move)];
+            } else if (move == plyKillers[0]) {
+                scores[i] = KILLER + 1;
+            } else if (move == plyKillers[1]) {
+                scores[i] = KILLER;
+            } else {
+                scores[i] = history[movedIndex(move)][PackedMove.to(move)];
+            }
+        }
+    }
+
+    // selection sort one step at a time, since a cutoff usually comes before the list is used up
+    private int pickNext(int ply, int index, int count) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        int bestIndex = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[bestIndex]) {
+                bestIndex = i;
+            }
+        }
+        int move = list[bestIndex];
+        list[bestIndex] = list[index];
+        list[index] = move;
+        int score = scores[bestIndex];
+        scores[bestIndex] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    private void rememberCutoff(int move, int ply, int depth) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int[] squares = history[movedIndex(move)];
+        int to = PackedMove.to(move);
+        squares[to] = Math.min(squares[to] + depth * depth, HISTORY_MAX);
+    }
+
+    private static boolean isTactical(int move) {
+        return PackedMove.isCapture(move) || PackedMove.promotion(move) != 0;
+    }
+
+    private static int keepTactical(int[] list, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (isTactical(list[i])) {
+                list[kept++] = list[i];
+            }
+        }
+        return kept;
+    }
+
+    // what the move wins: the captured piece plus what a pawn promotes to
+    private int victimValue(int move) {
+        int value = 0;
+        if ((PackedMove.flags(move) & PackedMove.EN_PASSANT) != 0) {
+            value = MaterialEvaluator.PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+        } else if (PackedMove.isCapture(move)) {
+            value = MaterialEvaluator.PIECE_VALUES[board.getPiece(PackedMove.to(move)).getPieceType().ordinal()];
+        }
+        int promotion = PackedMove.promotion(move);
+        if (promotion != 0) {
+            value += MaterialEvaluator.PIECE_VALUES[promotion - 1];
+        }
+        return value;
+    }
+
+    private int movedType(int move) {
+        return board.getPiece(PackedMove.from(move)).getPieceType().ordinal();
+    }
+
+    private int movedIndex(int move) {
+        ChessPiece piece = board.getPiece(PackedMove.from(move));
+        return Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,24 @@
+package engine;
+
+/**
+ * When a search should stop. Zero for any of the limits means no limit on that measure; the
+ * search ends at whichever limit it reaches first, or at {@link Search#MAX_PLY} deep.
+ *
+ * @param maxDepth  deepest iteration to finish, in plies
+ * @param maxNodes  nodes to visit before stopping
+ * @param maxMillis wall clock time to search for
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long maxMillis) {
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(0, maxNodes, 0);
+    }
+
+    public static SearchLimits time(long maxMillis) {
+        return new SearchLimits(0, 0, maxMillis);
+    }
+}
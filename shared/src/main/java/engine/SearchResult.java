@@ -0,0 +1,22 @@
+package engine;
+
+import chess.ChessMove;
+
+/**
+ * What a search settled on
+ *
+ * @param bestMove      move to play, or null if the side to move has no legal moves
+ * @param score         centipawns from the mover's point of view, see {@link Search#isMateScore}
+ * @param depth         deepest iteration that finished
+ * @param nodes         positions visited, quiescence included
+ * @param elapsedMillis how long the search ran
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long elapsedMillis) {
+
+    /**
+     * @return search speed in nodes per second
+     */
+    public long nodesPerSecond() {
+        return elapsedMillis == 0 ? nodes * 1000 : nodes * 1000 / elapsedMillis;
+    }
+}
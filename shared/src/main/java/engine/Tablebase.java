@@ -0,0 +1,387 @@
+package engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveGenerator;
+import chess.PackedMove;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Looks positions with few pieces up in endgame tables, giving the result with perfect play and
+ * how many plies it takes to mate. Tables are files named after their {@link Endgame}, like
+ * "KQvK.tb", all in one directory; {@link TablebaseGenerator} builds them.
+ * <p>
+ * A file is a {@link #HEADER_BYTES} header (the {@link #MAGIC} number, the piece count and the
+ * {@link Bitboards#pieceIndex} of each piece) followed by one byte per {@link Endgame#index}:
+ * {@link #DRAW}, {@link #ILLEGAL}, or the plies to mate plus one, which is odd when the side to
+ * move is getting mated and even when it is mating.
+ * <p>
+ * Files are memory mapped a {@link #PAGE_BYTES} page at a time as probes need them, and only a
+ * bounded number of pages are kept, the least recently used given up first (by the clock
+ * algorithm, so a hit only sets a flag). Probes of kept pages take no lock, so many search
+ * threads can probe at once; mapping a new page is done under the tablebase's lock. Java can't
+ * unmap a buffer on demand: a page given up is only dropped, and its mapping and address space go
+ * when the garbage collector frees the buffer. The OS page cache keeps hot pages in memory across
+ * mappings.
+ * Tables don't know about castling or en passant: positions with castling rights aren't probed,
+ * and a pawn that just moved two squares is treated as if it couldn't be taken en passant.
+ */
+public class Tablebase implements AutoCloseable {
+
+    public static final String EXTENSION = ".tb";
+    // "CTB1"
+    public static final int MAGIC = 0x43544231;
+    public static final int HEADER_BYTES = 16;
+    public static final int PAGE_BYTES = 1 << 16;
+    /**
+     * Pages kept mapped when no limit is given, settable with the chess.engine.tablebasePages
+     * system property
+     */
+    public static final int DEFAULT_CACHE_PAGES = Integer.getInteger("chess.engine.tablebasePages", 256);
+
+    // returned by probes the tables can't answer
+    public static final int UNKNOWN = -1;
+    public static final int DRAW = 0;
+    // index doesn't stand for a position that can come up in a game
+    public static final int ILLEGAL = 255;
+    // longest mate the format can hold
+    public static final int MAX_PLIES = ILLEGAL - 2;
+
+    // signature of a board with only the two kings left
+    private static final long BARE_KINGS =
+            1L << 4 * Bitboards.pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)
+            | 1L << 4 * Bitboards.pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+
+    // pages holds each page of the file while it is kept, slots the clock slot keeping it
+    private record Table(Endgame endgame, FileChannel channel, long length,
+                         AtomicReferenceArray<MappedByteBuffer> pages, int[] slots) {
+    }
+
+    private final Map<String, Table> tables = new HashMap<>();
+    private final Set<String> names = new TreeSet<>();
+    // material signatures in order, with the table and whether it is read with colors swapped
+    private long[] signatures = new long[0];
+    private Table[] signatureTables = new Table[0];
+    private boolean[] signatureFlipped = new boolean[0];
+
+    // the clock over kept pages: which table and page each slot holds, and whether it was read
+    // since the hand last passed
+    private final int cachePages;
+    private Table[] slotTables;
+    private int[] slotPages;
+    private boolean[] referenced;
+    private int slotsUsed;
+    private int hand;
+
+    private Tablebase(int cachePages) {
+        this.cachePages = cachePages;
+    }
+
+    /**
+     * Opens every table in a directory, keeping {@link #DEFAULT_CACHE_PAGES} pages mapped
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        return open(directory, DEFAULT_CACHE_PAGES);
+    }
+
+    /**
+     * Opens every table in a directory
+     *
+     * @param cachePages most pages to keep mapped at once
+     * @throws IOException if a table can't be read or isn't the file its name says
+     */
+    public static Tablebase open(Path directory, int cachePages) throws IOException {
+        if (cachePages < 1) {
+            throw new IllegalArgumentException("Cache must hold at least one page");
+        }
+        Tablebase tablebase = new Tablebase(cachePages);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                tablebase.add(file);
+            }
+            tablebase.indexSignatures();
+        } catch (IOException | RuntimeException ex) {
+            tablebase.close();
+            throw ex;
+        }
+        return tablebase;
+    }
+
+    /**
+     * @return names of the endgames that have tables
+     */
+    public Set<String> endgames() {
+        return Set.copyOf(names);
+    }
+
+    /**
+     * Looks up the game's current position
+     *
+     * @return the table value for the team to move, or {@link #UNKNOWN} if there is no table
+     * for the material or castling is still possible
+     */
+    public int probe(ChessGame game) {
+        if (game.getCastlingRights() != 0) {
+            return UNKNOWN;
+        }
+        return probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * @return the table value for the team to move, {@link #DRAW} if only the kings are left, or
+     * {@link #UNKNOWN} if there is no table for the material
+     */
+    public int probe(ChessBoard board, ChessGame.TeamColor toMove) {
+        long signature = Endgame.signature(board);
+        if (signature == BARE_KINGS) {
+            return DRAW;
+        }
+        // a board missing a king or with too many pieces matches no table
+        int slot = Arrays.binarySearch(signatures, signature);
+        if (slot < 0) {
+            return UNKNOWN;
+        }
+        Table table = signatureTables[slot];
+        boolean flipped = signatureFlipped[slot];
+        int index = table.endgame().index(board, flipped, (toMove == ChessGame.TeamColor.BLACK) != flipped);
+        return read(table, HEADER_BYTES + (long) index);
+    }
+
+    /**
+     * Picks the move that mates fastest, holds the draw, or puts off being mated longest
+     *
+     * @return the move, or null if the position or any position a move leads to can't be probed
+     */
+    public ChessMove bestMove(ChessGame game) {
+        int value = probe(game);
+        if (value == UNKNOWN || value == ILLEGAL) {
+            return null;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = game.legalMoves(game.getTeamTurn(), moves);
+        int best = 0;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            game.applyMove(moves[i]);
+            int reply = probe(game.getBoard(), game.getTeamTurn());
+            game.undoMove();
+            if (reply == UNKNOWN) {
+                return null;
+            }
+            // what the reply is worth to the opponent, turned around for the side moving
+            int rank;
+            if (reply == DRAW) {
+                rank = 0;
+            } else if (isLoss(reply)) {
+                rank = ILLEGAL - pliesToMate(reply);
+            } else {
+                rank = -ILLEGAL + pliesToMate(reply);
+            }
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = moves[i];
+            }
+        }
+        return best == 0 ? null : PackedMove.toChessMove(best);
+    }
+
+    /**
+     * @return number of pages mapped right now
+     */
+    public int mappedPages() {
+        int mapped = 0;
+        for (String name : names) {
+            Table table = tables.get(name);
+            for (int page = 0; page < table.pages().length(); page++) {
+                mapped += table.pages().get(page) == null ? 0 : 1;
+            }
+        }
+        return mapped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            for (Table table : tables.values()) {
+                for (int page = 0; page < table.pages().length(); page++) {
+                    table.pages().set(page, null);
+                }
+            }
+            slotsUsed = 0;
+        }
+        IOException failure = null;
+        for (Table table : Set.copyOf(tables.values())) {
+            try {
+                table.channel().close();
+            } catch (IOException ex) {
+                failure = ex;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return true if the side to move mates with best play
+     */
+    public static boolean isWin(int value) {
+        return value > DRAW && value != ILLEGAL && (value & 1) == 0;
+    }
+
+    /**
+     * @return true if the side to move gets mated with best play
+     */
+    public static boolean isLoss(int value) {
+        return value > DRAW && value != ILLEGAL && (value & 1) == 1;
+    }
+
+    /**
+     * @return plies until mate for a win or a loss, 0 when the side to move is already mated
+     */
+    public static int pliesToMate(int value) {
+        return value - 1;
+    }
+
+    private void add(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+        Endgame endgame;
+        try {
+            endgame = Endgame.of(name);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Not an endgame table: " + file, ex);
+        }
+        if (!endgame.name().equals(name)) {
+            throw new IOException("Table should be named " + endgame.name() + EXTENSION + ": " + file);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        long length = channel.size();
+        int pageCount = (int) ((length + PAGE_BYTES - 1) / PAGE_BYTES);
+        Table table = new Table(endgame, channel, length, new AtomicReferenceArray<>(pageCount), new int[pageCount]);
+        // register first so close() releases the channel if the header check fails
+        tables.put(name, table);
+        if (table.length() != HEADER_BYTES + (long) endgame.size()) {
+            throw new IOException("Not an endgame table: " + file);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        checkHeader(header.flip(), endgame, file);
+
+        names.add(name);
+        // the same table answers for the material with the colors swapped
+        int split = name.indexOf('v');
+        tables.put("K" + name.substring(split + 2) + "vK" + name.substring(1, split), table);
+    }
+
+    /**
+     * Checks a table's header against the endgame its file is named for
+     */
+    static void checkHeader(ByteBuffer header, Endgame endgame, Path file) throws IOException {
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.get() != endgame.pieceCount()) {
+            throw new IOException("Not an endgame table: " + file);
+        }
+        for (int i = 0; i < endgame.pieceCount(); i++) {
+            if (header.get() != Bitboards.pieceIndex(endgame.color(i), endgame.type(i))) {
+                throw new IOException("Table pieces don't match its name: " + file);
+            }
+        }
+    }
+
+    // sorts the signature of every table, both ways round, for probe's binary search
+    private void indexSignatures() {
+        Map<Long, Boolean> flippedBy = new HashMap<>();
+        Map<Long, Table> tableBy = new HashMap<>();
+        long totalPages = 0;
+        for (String name : names) {
+            Table table = tables.get(name);
+            totalPages += table.pages().length();
+            for (boolean flipped : new boolean[]{true, false}) {
+                long signature = table.endgame().signature(flipped);
+                tableBy.put(signature, table);
+                flippedBy.put(signature, flipped);
+            }
+        }
+        signatures = tableBy.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        signatureTables = new Table[signatures.length];
+        signatureFlipped = new boolean[signatures.length];
+        for (int i = 0; i < signatures.length; i++) {
+            signatureTables[i] = tableBy.get(signatures[i]);
+            signatureFlipped[i] = flippedBy.get(signatures[i]);
+        }
+
+        int slots = (int) Math.min(cachePages, Math.max(totalPages, 1));
+        slotTables = new Table[slots];
+        slotPages = new int[slots];
+        referenced = new boolean[slots];
+    }
+
+    private int read(Table table, long offset) {
+        int page = (int) (offset / PAGE_BYTES);
+        // a hit takes no lock: the page is a volatile read, and the clock flag is only a hint, so
+        // a flag set late or on the wrong slot just changes which page is given up next
+        MappedByteBuffer buffer = table.pages().get(page);
+        if (buffer != null) {
+            referenced[table.slots()[page]] = true;
+        } else {
+            synchronized (this) {
+                buffer = table.pages().get(page);
+                if (buffer == null) {
+                    buffer = map(table, page);
+                }
+            }
+        }
+        // a page given up after this still reads fine, its mapping lasts as long as the buffer
+        return buffer.get((int) (offset % PAGE_BYTES)) & 0xFF;
+    }
+
+    // maps a page into a free slot, or the first slot the clock hand finds not read lately
+    private MappedByteBuffer map(Table table, int page) {
+        long start = (long) page * PAGE_BYTES;
+        MappedByteBuffer buffer;
+        try {
+            buffer = table.channel().map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(PAGE_BYTES, table.length() - start));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        // a slot is only taken once the page is mapped, so a failed map leaves every kept page as it was
+        int slot;
+        if (slotsUsed < slotTables.length) {
+            slot = slotsUsed++;
+        } else {
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % slotTables.length;
+            }
+            slot = hand;
+            hand = (hand + 1) % slotTables.length;
+            slotTables[slot].pages().set(slotPages[slot], null);
+        }
+        table.slots()[page] = slot;
+        slotTables[slot] = table;
+        slotPages[slot] = page;
+        referenced[slot] = true;
+        table.pages().set(page, buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,549 @@
+package engine;
+
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds {@link Tablebase} tables by retrograde analysis. Every position of an endgame is first
+ * scored where it can be: checkmates, stalemates, and captures or promotions that lead into an
+ * already built smaller endgame. Then, a ply at a time, positions whose result is now known pass
+ * it back to the positions that could have moved into them, until nothing changes; whatever is
+ * left is a draw.
+ * <p>
+ * Each pass splits the table into ranges for a fork/join pool. Positions only ever change from
+ * unknown to a result for the current ply, and the count of a position's unresolved moves is
+ * decremented atomically, so threads can pass results back into the same positions without
+ * locking and the tables come out the same with any number of threads.
+ * <p>
+ * Tables for the endgames a capture or promotion leads to are built first and kept, so building
+ * "KPvK" also builds "KQvK", "KRvK", "KBvK" and "KNvK". Given a directory, tables already there
+ * are read instead of built and new ones are written to it.
+ * <p>
+ * Run with a directory and optionally endgame names to build every table up to four pieces, or
+ * just the ones named. Four-piece tables hold 16M positions each and take about 64 MB to build,
+ * on top of the tables their captures and promotions lead to.
+ */
+public class TablebaseGenerator implements AutoCloseable {
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT
+    };
+    // exit loss marker for positions a capture or promotion can draw
+    private static final int CAN_DRAW = 0xFF;
+    // positions per fork/join task
+    private static final int TASK_SIZE = 1 << 14;
+
+    private static final VarHandle OPEN_MOVES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final Map<String, byte[]> tables = new HashMap<>();
+    private final ForkJoinPool pool;
+    private final Path directory;
+
+    /**
+     * Uses a thread per available core and keeps tables in memory only
+     */
+    public TablebaseGenerator() {
+        this(Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * @param threads   threads to build with
+     * @param directory where tables are read from if already built and written to once built,
+     *                  or null to keep them in memory only
+     */
+    public TablebaseGenerator(int threads, Path directory) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread");
+        }
+        pool = new ForkJoinPool(threads);
+        this.directory = directory;
+    }
+
+    /**
+     * @return the table for the endgame, one {@link Tablebase} value per index
+     * @throws IllegalStateException if a mate is too long for the format to hold
+     * @throws UncheckedIOException  if a table in the directory can't be read or written
+     */
+    public byte[] generate(Endgame endgame) {
+        byte[] table = tables.get(endgame.name());
+        if (table != null) {
+            return table;
+        }
+        try {
+            Path file = directory == null ? null : directory.resolve(endgame.name() + Tablebase.EXTENSION);
+            if (file != null && Files.exists(file)) {
+                table = read(endgame, file);
+            } else {
+                table = new Builder(endgame).build();
+                if (file != null) {
+                    write(endgame, table, file);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        tables.put(endgame.name(), table);
+        return table;
+    }
+
+    /**
+     * Generates a table and writes it to a directory in the format {@link Tablebase} reads
+     *
+     * @return the file written
+     */
+    public Path write(Endgame endgame, Path directory) throws IOException {
+        Path file = directory.resolve(endgame.name() + Tablebase.EXTENSION);
+        write(endgame, generate(endgame), file);
+        return file;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static void write(Endgame endgame, byte[] table, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeByte(endgame.pieceCount());
+            for (int i = 0; i < endgame.pieceCount(); i++) {
+                out.writeByte(Bitboards.pieceIndex(endgame.color(i), endgame.type(i)));
+            }
+            out.write(new byte[Tablebase.HEADER_BYTES - 5 - endgame.pieceCount()]);
+            out.write(table);
+        }
+    }
+
+    private static byte[] read(Endgame endgame, Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != Tablebase.HEADER_BYTES + endgame.size()) {
+            throw new IOException("Not an endgame table: " + file);
+        }
+        Tablebase.checkHeader(ByteBuffer.wrap(bytes, 0, Tablebase.HEADER_BYTES), endgame, file);
+        return Arrays.copyOfRange(bytes, Tablebase.HEADER_BYTES, bytes.length);
+    }
+
+    // a capture or promotion, with the table of the endgame it leads to
+    private record Exit(Endgame.Transition transition, byte[] table) {
+    }
+
+    /**
+     * Works on one endgame. Alongside the values it keeps, for each position still open, how many
+     * moves stay in the endgame and have no result yet, the fastest win and the slowest loss
+     * through a capture or promotion.
+     */
+    private class Builder {
+
+        private final Endgame endgame;
+        private final int pieces;
+        private final byte[] values;
+        private final byte[] openMoves;
+        private final byte[] exitWins;
+        private final byte[] exitLosses;
+
+        // by capturing piece, then captured piece (pieces for none)
+        private final Exit[][] captures;
+        // by pawn, then captured piece (pieces for none), then promotion
+        private final Exit[][][] promotions;
+
+
+        Builder(Endgame endgame) {
+            this.endgame = endgame;
+            pieces = endgame.pieceCount();
+            values = new byte[endgame.size()];
+            openMoves = new byte[endgame.size()];
+            exitWins = new byte[endgame.size()];
+            exitLosses = new byte[endgame.size()];
+
+            captures = new Exit[pieces][pieces + 1];
+            promotions = new Exit[pieces][pieces + 1][PROMOTIONS.length];
+            for (int i = 0; i < pieces; i++) {
+                for (int victim = 2; victim < pieces; victim++) {
+                    if (endgame.color(victim) != endgame.color(i)) {
+                        captures[i][victim] = exit(endgame.transition(victim, -1, null));
+                    }
+                }
+                if (endgame.type(i) == ChessPiece.PieceType.PAWN) {
+                    for (int victim = 2; victim <= pieces; victim++) {
+                        for (int p = 0; p < PROMOTIONS.length; p++) {
+                            int removed = victim == pieces ? -1 : victim;
+                            if (removed < 0 || endgame.color(removed) != endgame.color(i)) {
+                                promotions[i][victim][p] = exit(endgame.transition(removed, i, PROMOTIONS[p]));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private Exit exit(Endgame.Transition transition) {
+            Endgame target = transition.target();
+            return new Exit(transition, target == null ? null : generate(target));
+        }
+
+        byte[] build() {
+            int horizon = pool.invoke(new Pass(0, values.length, 0));
+            for (int ply = 1; ply <= horizon + 1; ply++) {
+                horizon = Math.max(horizon, pool.invoke(new Pass(0, values.length, ply)));
+            }
+            return values;
+        }
+
+        /**
+         * One pass over a range of positions, split in half until it is small
+         */
+        private class Pass extends RecursiveTask<Integer> {
+
+            // ForkJoinTask is Serializable, though a pass is never serialized
+            private static final long serialVersionUID = 1L;
+
+            private final int start;
+            private final int end;
+            private final int ply;
+
+            Pass(int start, int end, int ply) {
+                this.start = start;
+                this.end = end;
+                this.ply = ply;
+            }
+
+            // the furthest mate found in the range
+            @Override
+            protected Integer compute() {
+                if (end - start <= TASK_SIZE) {
+                    Worker worker = new Worker();
+                    worker.run(start, end, ply);
+                    return worker.furthest;
+                }
+                int middle = (start + end) >>> 1;
+                Pass left = new Pass(start, middle, ply);
+                left.fork();
+                int right = new Pass(middle, end, ply).compute();
+                return Math.max(right, left.join());
+            }
+        }
+
+        /**
+         * Scratch space for one thread, and the furthest mate it has found
+         */
+        private class Worker {
+
+            private final int[] squares = new int[pieces];
+            private final int[] exitSquares = new int[Endgame.MAX_PIECES];
+            private int furthest;
+
+            // ply 0 scores every position, later plies move results back one more ply
+            void run(int start, int end, int ply) {
+                for (int index = start; index < end; index++) {
+                    if (ply == 0) {
+                        score(index);
+                    } else if (values[index] == 0 && (exitWins[index] & 0xFF) == ply) {
+                        set(index, ply);
+                    } else if ((values[index] & 0xFF) == ply) {
+                        retract(index, ply);
+                    }
+                }
+            }
+
+            // first look at a position: legality, mate and stalemate, and where its moves lead
+            private void score(int index) {
+                boolean blackToMove = endgame.decode(index, squares);
+                ChessGame.TeamColor mover = blackToMove ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+                long occupied = occupancy();
+                if (!isLegal(mover, occupied)) {
+                    values[index] = (byte) Tablebase.ILLEGAL;
+                    return;
+                }
+
+                int moves = 0;
+                int inside = 0;
+                int bestWin = 0;
+                int worstLoss = 0;
+                boolean canDraw = false;
+                for (int i = 0; i < pieces; i++) {
+                    if (endgame.color(i) != mover) {
+                        continue;
+                    }
+                    int from = squares[i];
+                    long targets = targets(i, occupied);
+                    while (targets != 0) {
+                        int to = Long.numberOfTrailingZeros(targets);
+                        targets &= targets - 1;
+                        int victim = pieceAt(to);
+                        squares[i] = to;
+                        if (victim >= 0) {
+                            squares[victim] = -1;
+                        }
+                        long after = (occupied & ~Bitboards.bit(from)) | Bitboards.bit(to);
+                        if (!isAttacked(squares[mover == ChessGame.TeamColor.WHITE ? 0 : 1], mover.opponent(), after)) {
+                            moves++;
+                            boolean promotes = endgame.type(i) == ChessPiece.PieceType.PAWN && (to < 8 || to >= 56);
+                            if (!promotes && victim < 0) {
+                                inside++;
+                            } else {
+                                for (int p = 0; p < (promotes ? PROMOTIONS.length : 1); p++) {
+                                    Exit exit = promotes ? promotions[i][victim < 0 ? pieces : victim][p] : captures[i][victim];
+                                    int value = exitValue(exit, !blackToMove);
+                                    if (value == Tablebase.DRAW) {
+                                        canDraw = true;
+                                    } else if (Tablebase.isLoss(value)) {
+                                        int plies = Tablebase.pliesToMate(value) + 1;
+                                        bestWin = bestWin == 0 ? plies : Math.min(bestWin, plies);
+                                    } else {
+                                        worstLoss = Math.max(worstLoss, Tablebase.pliesToMate(value) + 1);
+                                    }
+                                }
+                            }
+                        }
+                        squares[i] = from;
+                        if (victim >= 0) {
+                            squares[victim] = to;
+                        }
+                    }
+                }
+
+                if (moves == 0) {
+                    boolean inCheck = isAttacked(squares[blackToMove ? 1 : 0], mover.opponent(), occupied);
+                    if (inCheck) {
+                        set(index, 0);
+                    }
+                } else if (inside == 0) {
+                    // every move leaves the endgame, so the result is already known
+                    if (bestWin != 0) {
+                        set(index, bestWin);
+                    } else if (!canDraw) {
+                        set(index, worstLoss);
+                    }
+                } else {
+                    openMoves[index] = (byte) inside;
+                    exitWins[index] = (byte) bestWin;
+                    exitLosses[index] = (byte) (canDraw ? CAN_DRAW : worstLoss);
+                    furthest = Math.max(furthest, bestWin);
+                }
+            }
+
+            // passes the result of a position, known at plies - 1, back to the positions before it
+            private void retract(int index, int ply) {
+                boolean blackToMove = endgame.decode(index, squares);
+                boolean lost = Tablebase.isLoss(values[index] & 0xFF);
+                ChessGame.TeamColor mover = blackToMove ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                long occupied = occupancy();
+                for (int i = 0; i < pieces; i++) {
+                    if (endgame.color(i) != mover) {
+                        continue;
+                    }
+                    int to = squares[i];
+                    long origins = origins(i, occupied);
+                    while (origins != 0) {
+                        squares[i] = Long.numberOfTrailingZeros(origins);
+                        origins &= origins - 1;
+                        int before = endgame.index(squares, !blackToMove);
+                        if (values[before] != 0) {
+                            continue;
+                        }
+                        if (lost) {
+                            set(before, ply);
+                        } else if (decrementOpenMoves(before) == 1
+                                && exitWins[before] == 0
+                                && (exitLosses[before] & 0xFF) != CAN_DRAW) {
+                            // every move loses, so this loses as slowly as the slowest of them
+                            set(before, Math.max(ply, exitLosses[before] & 0xFF));
+                        }
+                    }
+                    squares[i] = to;
+                }
+            }
+
+            /**
+             * Counts one of a position's open moves as resolved, safe against other threads doing
+             * the same. This is a compareAndSet loop rather than getAndAdd: C2 in the JDK 11.0.21,
+             * 17.0.9, 17.0.16 and 21.0.1 builds tried on x86-64 returns wrong old values from
+             * getAndAdd on byte and short arrays, while the stored value and compareAndSet are
+             * right, which made tables come out wrong once the pass was compiled.
+             *
+             * @return the number of open moves before this one
+             */
+            private int decrementOpenMoves(int index) {
+                byte open;
+                do {
+                    open = openMoves[index];
+                } while (!OPEN_MOVES.weakCompareAndSet(openMoves, index, open, (byte) (open - 1)));
+                return open;
+            }
+
+            private void set(int index, int plies) {
+                if (plies > Tablebase.MAX_PLIES) {
+                    throw new IllegalStateException("Mate too long for a table in " + endgame.name());
+                }
+                values[index] = (byte) (plies + 1);
+                furthest = Math.max(furthest, plies);
+            }
+
+            private int exitValue(Exit exit, boolean blackToMove) {
+                Endgame.Transition transition = exit.transition();
+                Endgame target = transition.target();
+                if (target == null) {
+                    return Tablebase.DRAW;
+                }
+                int flip = transition.flipped() ? 56 : 0;
+                for (int j = 0; j < target.pieceCount(); j++) {
+                    exitSquares[j] = squares[transition.pieces()[j]] ^ flip;
+                }
+                return exit.table()[target.index(exitSquares, blackToMove != transition.flipped())] & 0xFF;
+            }
+
+            // squares the piece can move to, captures included
+            private long targets(int piece, long occupied) {
+                int from = squares[piece];
+                ChessGame.TeamColor color = endgame.color(piece);
+                long own = 0;
+                for (int i = 0; i < pieces; i++) {
+                    if (endgame.color(i) == color) {
+                        own |= Bitboards.bit(squares[i]);
+                    }
+                }
+                if (endgame.type(piece) != ChessPiece.PieceType.PAWN) {
+                    return MoveGenerator.attacks(endgame.type(piece), from, occupied) & ~own;
+                }
+                long targets = MoveGenerator.pawnAttacks(color, from) & occupied & ~own;
+                int step = color == ChessGame.TeamColor.WHITE ? 8 : -8;
+                int startRow = color == ChessGame.TeamColor.WHITE ? 1 : 6;
+                if ((occupied & Bitboards.bit(from + step)) == 0) {
+                    targets |= Bitboards.bit(from + step);
+                    if (from >>> 3 == startRow && (occupied & Bitboards.bit(from + 2 * step)) == 0) {
+                        targets |= Bitboards.bit(from + 2 * step);
+                    }
+                }
+                return targets;
+            }
+
+            // empty squares the piece could have come from without capturing or promoting
+            private long origins(int piece, long occupied) {
+                int to = squares[piece];
+                if (endgame.type(piece) != ChessPiece.PieceType.PAWN) {
+                    return MoveGenerator.attacks(endgame.type(piece), to, occupied) & ~occupied;
+                }
+                boolean white = endgame.color(piece) == ChessGame.TeamColor.WHITE;
+                int step = white ? -8 : 8;
+                int row = to >>> 3;
+                // a pawn never stands on its own back rank, so it can't have come from there
+                if (white ? row < 2 : row > 5) {
+                    return 0;
+                }
+                long origins = 0;
+                if ((occupied & Bitboards.bit(to + step)) == 0) {
+                    origins |= Bitboards.bit(to + step);
+                    if (row == (white ? 3 : 4) && (occupied & Bitboards.bit(to + 2 * step)) == 0) {
+                        origins |= Bitboards.bit(to + 2 * step);
+                    }
+                }
+                return origins;
+            }
+
+            private boolean isLegal(ChessGame.TeamColor mover, long occupied) {
+                if (Long.bitCount(occupied) != pieces
+                        || (MoveGenerator.kingAttacks(squares[0]) & Bitboards.bit(squares[1])) != 0) {
+                    return false;
+                }
+                for (int i = 2; i < pieces; i++) {
+                    if (endgame.type(i) == ChessPiece.PieceType.PAWN && (squares[i] < 8 || squares[i] >= 56)) {
+                        return false;
+                    }
+                }
+                // the side that just moved can't have left its king in check
+                return !isAttacked(squares[mover == ChessGame.TeamColor.WHITE ? 1 : 0], mover, occupied);
+            }
+
+            private boolean isAttacked(int square, ChessGame.TeamColor attacker, long occupied) {
+                for (int i = 0; i < pieces; i++) {
+                    if (endgame.color(i) != attacker || squares[i] < 0) {
+                        continue;
+                    }
+                    long attacks = endgame.type(i) == ChessPiece.PieceType.PAWN
+                            ? MoveGenerator.pawnAttacks(attacker, squares[i])
+                            : MoveGenerator.attacks(endgame.type(i), squares[i], occupied);
+                    if ((attacks & Bitboards.bit(square)) != 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            private int pieceAt(int square) {
+                for (int i = 0; i < pieces; i++) {
+                    if (squares[i] == square) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+
+            private long occupancy() {
+                long occupied = 0;
+                for (int i = 0; i < pieces; i++) {
+                    occupied |= Bitboards.bit(squares[i]);
+                }
+                return occupied;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: TablebaseGenerator <directory> [endgame...]");
+            System.exit(1);
+        }
+        Path directory = Path.of(args[0]);
+        List<String> names = args.length > 1 ? List.of(args).subList(1, args.length) : allEndgames();
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        for (String name : names) {
+            long start = System.nanoTime();
+            // a generator per endgame, so only the tables it needs are held in memory
+            try (TablebaseGenerator generator = new TablebaseGenerator(threads, directory)) {
+                generator.generate(Endgame.of(name));
+            }
+            System.out.printf("%s %.1f s%n", Endgame.of(name).name(), (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    // every endgame with 3 or 4 pieces, smaller ones first
+    private static List<String> allEndgames() {
+        String letters = "QRBNP";
+        List<String> names = new ArrayList<>();
+        for (char piece : letters.toCharArray()) {
+            names.add("K" + piece + "vK");
+        }
+        for (int i = 0; i < letters.length(); i++) {
+            for (int j = i; j < letters.length(); j++) {
+                names.add("K" + letters.charAt(i) + letters.charAt(j) + "vK");
+                names.add("K" + letters.charAt(i) + "vK" + letters.charAt(j));
+            }
+        }
+        return names;
+    }
+}
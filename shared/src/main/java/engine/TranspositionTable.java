@@ -0,0 +1,155 @@
+package engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Remembers search results by position key so a position reached again, by transposition or
+ * in a later iteration, can reuse them. The table is a fixed power-of-two number of entries in
+ * one long[] and can be shared by any number of search threads without locking.
+ * <p>
+ * Each entry is two longs: the packed data, and the position key XORed with that data. Writers
+ * store both words without coordinating, so two threads can leave an entry with one word from
+ * each; the XOR check then fails and the entry reads as a miss instead of handing back another
+ * position's result.
+ * <p>
+ * Data packs the {@link chess.PackedMove} into bits 0-18, the score + 32768 into bits 19-34,
+ * the depth into bits 35-42, the bound into bits 43-44 and the search age into bits 45-52.
+ * An entry is replaced when it comes from an older search or the new result searched at least
+ * as deep.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+    // the score is at least this much (the search failed high)
+    public static final int LOWER_BOUND = 2;
+    // the score is at most this much (no move beat alpha)
+    public static final int UPPER_BOUND = 3;
+
+    public static final int MAX_MEGABYTES = 8192;
+    /**
+     * Size used when none is given, settable with the chess.engine.hashMb system property
+     */
+    public static final int DEFAULT_MEGABYTES = Integer.getInteger("chess.engine.hashMb", 16);
+
+    // opaque access keeps each long read and written whole on every platform
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] slots;
+    private final int mask;
+    private volatile int age;
+
+    public TranspositionTable() {
+        this(DEFAULT_MEGABYTES);
+    }
+
+    /**
+     * @param megabytes memory to use, rounded down to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) {
+            throw new IllegalArgumentException("Table size must be 1 to " + MAX_MEGABYTES + " MB");
+        }
+        // 16 bytes an entry
+        int entries = Integer.highestOneBit(megabytes) << 16;
+        slots = new long[entries * 2];
+        mask = entries - 1;
+    }
+
+    /**
+     * @return number of entries the table holds
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Marks the start of a new search, so entries from earlier searches give way to new ones
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        age = 0;
+    }
+
+    /**
+     * @return the entry's data for the key, or 0 if the table doesn't have it
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = (long) SLOTS.getOpaque(slots, index + 1);
+        long check = (long) SLOTS.getOpaque(slots, index);
+        return data != 0 && (check ^ data) == key ? data : 0;
+    }
+
+    /**
+     * @param move  best move found, or 0 for none
+     * @param score score from the searched node, mate scores already adjusted to the node
+     * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long old = (long) SLOTS.getOpaque(slots, index + 1);
+        if (old != 0) {
+            boolean sameKey = ((long) SLOTS.getOpaque(slots, index) ^ old) == key;
+            boolean current = age(old) == age;
+            if (current && depth < depth(old) && !(sameKey && bound == EXACT)) {
+                return;
+            }
+            if (sameKey && move == 0) {
+                // keep the old best move for ordering even if its score is being replaced
+                move = move(old);
+            }
+        }
+        long data = (move & 0x7FFFFL)
+                | ((long) (score + 32768) << 19)
+                | ((long) Math.min(depth, 0xFF) << 35)
+                | ((long) bound << 43)
+                | ((long) age << 45);
+        SLOTS.setOpaque(slots, index, key ^ data);
+        SLOTS.setOpaque(slots, index + 1, data);
+    }
+
+    /**
+     * @return roughly how full the table is with entries from the current search, per mille
+     */
+    public int usagePermille() {
+        int sample = Math.min(1000, capacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = (long) SLOTS.getOpaque(slots, i * 2 + 1);
+            if (data != 0 && age(data) == age) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0x7FFFF);
+    }
+
+    public static int score(long data) {
+        return (int) ((data >>> 19) & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 35) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 43) & 0x3);
+    }
+
+    private static int age(long data) {
+        return (int) ((data >>> 45) & 0xFF);
+    }
+
+    private int index(long key) {
+        return ((int) key & mask) << 1;
+    }
+}
@@ -0,0 +1,4 @@
+package model.request;
+
+public record CreateGameRequest(String authToken, String gameName) {
+}
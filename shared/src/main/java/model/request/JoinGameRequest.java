@@ -0,0 +1,6 @@
+package model.request;
+
+import chess.ChessGame;
+
+public record JoinGameRequest(String authToken, ChessGame.TeamColor playerColor, Integer gameID) {
+}
@@ -0,0 +1,6 @@
+package model.request;
+
+import chess.ChessMove;
+
+public record MakeMoveRequest(String authToken, Integer gameID, ChessMove move) {
+}
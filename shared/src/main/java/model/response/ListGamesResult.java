@@ -0,0 +1,6 @@
+package model.response;
+
+import java.util.Collection;
+
+public record ListGamesResult(Collection<ListedGame> games) {
+}
@@ -0,0 +1,7 @@
+package model.response;
+
+import chess.GameSnapshot;
+
+public record ListedGame(int gameID, String whiteUsername, String blackUsername, String gameName,
+                         GameSnapshot game) {
+}
@@ -0,0 +1,63 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class AllMovesTests {
+
+    private static final String[] POSITIONS = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            // white in check from the rook on h1, and the black knight pinned to its king
+            "4k3/8/8/8/4n3/8/4R3/4K2r w - - 0 1",
+    };
+
+    @Test
+    @DisplayName("All Moves Match validMoves")
+    public void matchesValidMoves() {
+        for (String fen : POSITIONS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+                Map<ChessPosition, Collection<ChessMove>> allMoves = game.allMoves(team);
+                long[] targets = game.legalTargets(team);
+                for (int square = 0; square < 64; square++) {
+                    ChessPosition position = ChessPosition.of(square);
+                    ChessPiece piece = game.getBoard().getPiece(square);
+                    if (piece == null || piece.getTeamColor() != team) {
+                        Assertions.assertFalse(allMoves.containsKey(position), "Moves for a square without a "
+                                + team + " piece: " + position);
+                        Assertions.assertEquals(0, targets[square], "Targets for an empty square");
+                        continue;
+                    }
+                    var expected = new HashSet<>(game.validMoves(position));
+                    var actual = new HashSet<>(allMoves.getOrDefault(position, List.of()));
+                    Assertions.assertEquals(expected, actual, "Wrong moves from " + position + " in " + fen);
+
+                    long expectedTargets = 0;
+                    for (ChessMove move : expected) {
+                        expectedTargets |= Bitboards.bit(Bitboards.square(move.getEndPosition()));
+                    }
+                    Assertions.assertEquals(expectedTargets, targets[square], "Wrong targets from " + position);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Grouped in Square Order")
+    public void squareOrder() {
+        int last = -1;
+        for (ChessPosition position : new ChessGame().allMoves(ChessGame.TeamColor.WHITE).keySet()) {
+            int square = Bitboards.square(position);
+            Assertions.assertTrue(square > last, "Squares out of order at " + position);
+            last = square;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawRuleTests {
+
+    @Test
+    @DisplayName("Knight Shuffle Repeats Three Times")
+    public void threefoldRepetition() throws InvalidMoveException {
+        var game = new ChessGame();
+        Assertions.assertEquals(1, game.getRepetitionCount(), "Starting position not counted");
+
+        for (int cycle = 0; cycle < 2; cycle++) {
+            Assertions.assertFalse(game.isThreefoldRepetition(), "Repetition reported too early");
+            game.makeMove(move(1, 7, 3, 6));
+            game.makeMove(move(8, 7, 6, 6));
+            game.makeMove(move(3, 6, 1, 7));
+            game.makeMove(move(6, 6, 8, 7));
+        }
+        Assertions.assertEquals(3, game.getRepetitionCount(), "Wrong repetition count");
+        Assertions.assertTrue(game.isThreefoldRepetition(), "Threefold repetition missed");
+
+        game.undoMove();
+        Assertions.assertEquals(2, game.getRepetitionCount(), "Undo did not remove the position");
+    }
+
+    @Test
+    @DisplayName("Made and Undone Moves Leave No History Behind")
+    public void boundedHistory() {
+        ChessGame game = new ChessGame();
+        int capacity = game.historyCapacity();
+        // perft plays and takes back every move to depth 4, hundreds of thousands of positions
+        Assertions.assertEquals(197281, Perft.perft(game, 4), "Wrong node count");
+        for (int square = 0; square < 16; square++) {
+            game.validMoves(ChessPosition.of(square));
+        }
+        Assertions.assertEquals(capacity, game.historyCapacity(), "History grew with moves that were taken back");
+        Assertions.assertEquals(1, game.getRepetitionCount(), "Taken back moves still counted");
+    }
+
+    @Test
+    @DisplayName("Copies Keep Only the History Repetitions Need")
+    public void copyFrom() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 5, 5, 5));
+        for (int cycle = 0; cycle < 40; cycle++) {
+            game.makeMove(move(1, 7, 3, 6));
+            game.makeMove(move(8, 7, 6, 6));
+            game.makeMove(move(3, 6, 1, 7));
+            game.makeMove(move(6, 6, 8, 7));
+        }
+        ChessGame copy = new ChessGame();
+        copy.copyFrom(game);
+        Assertions.assertEquals(game.getZobristKey(), copy.getZobristKey(), "Copy has another position");
+        Assertions.assertEquals(game.getRepetitionCount(), copy.getRepetitionCount(), "Copy lost repetitions");
+        Assertions.assertTrue(copy.historyCapacity() <= 2 * (game.getHalfmoveClock() + 1),
+                "Copy kept more history than the halfmove clock covers");
+        Assertions.assertThrows(IllegalStateException.class, copy::undoMove, "Copy can take back moves");
+
+        game.makeMove(move(2, 4, 4, 4));
+        copy.copyFrom(game);
+        Assertions.assertEquals(1, copy.getRepetitionCount(), "Pawn move didn't end the repetitions");
+    }
+
+    @Test
+    @DisplayName("Halfmove Clock Resets on Pawn Moves")
+    public void halfmoveClock() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(move(1, 7, 3, 6));
+        game.makeMove(move(8, 7, 6, 6));
+        Assertions.assertEquals(2, game.getHalfmoveClock(), "Knight moves not counted");
+
+        game.makeMove(move(2, 5, 4, 5));
+        Assertions.assertEquals(0, game.getHalfmoveClock(), "Pawn move did not reset the clock");
+        Assertions.assertFalse(game.isFiftyMoveRule(), "Fifty-move rule reported too early");
+
+        game.undoMove();
+        Assertions.assertEquals(2, game.getHalfmoveClock(), "Undo did not restore the clock");
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+}
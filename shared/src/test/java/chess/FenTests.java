@@ -0,0 +1,109 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.nio.charset.StandardCharsets;
+
+public class FenTests {
+
+    private static final String[] POSITIONS = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 1",
+            "4k3/8/8/8/8/8/8/4K2R b K - 37 1",
+    };
+
+    @Test
+    @DisplayName("Starting Position")
+    public void startingPosition() {
+        ChessGame game = ChessGame.fromFen(Fen.STARTING_POSITION);
+        Assertions.assertEquals(new ChessGame(), game, "FEN start doesn't match the default game");
+        Assertions.assertEquals(ChessGame.WHITE_KINGSIDE | ChessGame.WHITE_QUEENSIDE
+                | ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE, game.getCastlingRights(), "Wrong castling rights");
+    }
+
+    @Test
+    @DisplayName("Round Trips")
+    public void roundTrips() {
+        for (String fen : POSITIONS) {
+            Assertions.assertEquals(fen, ChessGame.fromFen(fen).toFen(), "FEN changed in round trip");
+        }
+    }
+
+    @Test
+    @DisplayName("Board and State Fields")
+    public void fields() {
+        ChessGame game = ChessGame.fromFen(POSITIONS[2]);
+        Assertions.assertEquals(TestUtilities.loadBoard("""
+                | | | | | | | | |
+                | | |p| | | | | |
+                | | | |p| | | | |
+                |K|P| | | | | |r|
+                | |R| | | |p| |k|
+                | | | | | | | | |
+                | | | | |P| |P| |
+                | | | | | | | | |
+                """), game.getBoard(), "Wrong pieces");
+        Assertions.assertEquals(0, game.getCastlingRights(), "Wrong castling rights");
+
+        game = ChessGame.fromFen(POSITIONS[3]);
+        Assertions.assertEquals(Bitboards.square(6, 6), game.getEnPassantSquare(), "Wrong en passant square");
+
+        game = ChessGame.fromFen(POSITIONS[4]);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn(), "Wrong team to move");
+        Assertions.assertEquals(ChessGame.WHITE_KINGSIDE, game.getCastlingRights(), "Wrong castling rights");
+        Assertions.assertEquals(37, game.getHalfmoveClock(), "Wrong halfmove clock");
+    }
+
+    @Test
+    @DisplayName("Parse From Buffers")
+    public void buffers() {
+        String text = "xx" + POSITIONS[1] + "\n";
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        ChessGame expected = ChessGame.fromFen(POSITIONS[1]);
+        Assertions.assertEquals(expected, Fen.parse(text, 2, text.length() - 1), "Wrong game from CharSequence range");
+        Assertions.assertEquals(expected, Fen.parse(bytes, 2, bytes.length - 1), "Wrong game from byte range");
+
+        // EPD style, without the move counters
+        Assertions.assertEquals(expected, Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -"),
+                "Wrong game without move counters");
+    }
+
+    @Test
+    @DisplayName("Load Into Existing Game")
+    public void loadExisting() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        ChessBoard board = game.getBoard();
+        Fen.load(game, POSITIONS[2], 0, POSITIONS[2].length());
+        Assertions.assertSame(board, game.getBoard(), "Board was not reused");
+        Assertions.assertEquals(ChessGame.fromFen(POSITIONS[2]), game, "Wrong position after load");
+        Assertions.assertThrows(IllegalStateException.class, game::undoMove, "History was not reset");
+    }
+
+    @Test
+    @DisplayName("Bad FEN Rejected")
+    public void badFen() {
+        String[] bad = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KKq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+        };
+        var game = new ChessGame();
+        for (String fen : bad) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.load(game, fen, 0, fen.length()),
+                    "Accepted bad FEN: " + fen);
+            Assertions.assertEquals(new ChessGame(), game, "Bad FEN changed the game: " + fen);
+        }
+    }
+}
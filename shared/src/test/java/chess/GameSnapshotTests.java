@@ -0,0 +1,81 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GameSnapshotTests {
+
+    @Test
+    @DisplayName("Snapshot Doesn't Follow the Game")
+    public void independentOfGame() throws InvalidMoveException {
+        var game = new ChessGame();
+        GameSnapshot start = GameSnapshot.of(game);
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        GameSnapshot after = GameSnapshot.of(game);
+
+        Assertions.assertEquals(new ChessGame().toFen(), start.toFen(), "Snapshot changed with the game");
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                start.getPiece(new ChessPosition(2, 5)), "Wrong piece in the old snapshot");
+        Assertions.assertNull(after.getPiece(new ChessPosition(2, 5)), "Wrong piece in the new snapshot");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, after.getTeamTurn(), "Wrong team to move");
+        Assertions.assertEquals(Bitboards.square(3, 5), after.getEnPassantSquare(), "En passant square not kept");
+        Assertions.assertEquals(ChessGame.ALL_CASTLING, after.getCastlingRights(), "Castling rights not kept");
+        Assertions.assertEquals(game.getZobristKey(), after.getZobristKey(), "Wrong key");
+        Assertions.assertEquals(game.getZobristKey(), after.toGame().getZobristKey(), "Decoded game differs");
+
+        // changing what a reader got back leaves the snapshot alone
+        after.toBytes()[0] = 0;
+        after.toGame().makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        Assertions.assertEquals(game.toFen(), after.toFen(), "Snapshot changed through a copy");
+    }
+
+    @Test
+    @DisplayName("Readers Only See Whole Positions")
+    public void concurrentReaders() throws InterruptedException {
+        var game = new ChessGame();
+        var latest = new AtomicReference<>(GameSnapshot.of(game));
+        var done = new AtomicBoolean();
+        var failure = new AtomicReference<String>();
+
+        Thread[] readers = new Thread[3];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                while (!done.get() && failure.get() == null) {
+                    GameSnapshot snapshot = latest.get();
+                    // a board caught mid-move would have a king missing or a key that doesn't match
+                    ChessGame copy = snapshot.toGame();
+                    if (copy.getZobristKey() != snapshot.getZobristKey()
+                            || copy.getBoard().getKingSquare(ChessGame.TeamColor.WHITE) < 0
+                            || copy.getBoard().getKingSquare(ChessGame.TeamColor.BLACK) < 0) {
+                        failure.set(snapshot.toFen());
+                    }
+                }
+            });
+            readers[i].start();
+        }
+
+        // the writer plays random games, testing every move with validMoves on the live board
+        var random = new java.util.Random(3);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int ply = 0; ply < 2000; ply++) {
+            int count = game.legalMoves(game.getTeamTurn(), moves);
+            if (count == 0 || game.isFiftyMoveRule()) {
+                game = new ChessGame();
+            } else {
+                int move = moves[random.nextInt(count)];
+                game.validMoves(ChessPosition.of(PackedMove.from(move)));
+                game.applyMove(move);
+            }
+            latest.set(GameSnapshot.of(game));
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assertions.assertNull(failure.get(), "Reader saw a broken position");
+    }
+}
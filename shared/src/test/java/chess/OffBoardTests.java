@@ -0,0 +1,27 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class OffBoardTests {
+
+    @Test
+    @DisplayName("Off-Board Positions Don't Alias Squares")
+    public void offBoardPositions() {
+        ChessBoard board = new ChessBoard();
+        ChessPiece rook = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        for (ChessPosition position : new ChessPosition[]{new ChessPosition(1, 9), new ChessPosition(0, 1),
+                new ChessPosition(9, 8), new ChessPosition(4, 0)}) {
+            Assertions.assertThrows(ArrayIndexOutOfBoundsException.class, () -> board.getPiece(position),
+                    "Read a piece at " + position);
+            Assertions.assertThrows(ArrayIndexOutOfBoundsException.class, () -> board.addPiece(position, rook),
+                    "Added a piece at " + position);
+        }
+        Assertions.assertEquals(0, board.getOccupancy(), "Board changed by off-board writes");
+
+        ChessGame game = new ChessGame();
+        Assertions.assertNull(game.validMoves(new ChessPosition(1, 9)), "Moves found off the board");
+        Assertions.assertNull(game.validMoves(new ChessPosition(0, 1)), "Moves found off the board");
+    }
+}
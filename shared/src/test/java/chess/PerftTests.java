@@ -0,0 +1,106 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.Map;
+
+/**
+ * Checks move generation against published perft counts, including positions picked to
+ * exercise castling, en passant and pins along the row an en passant capture clears.
+ */
+public class PerftTests {
+
+    @Test
+    @DisplayName("Starting Position")
+    public void startingPosition() {
+        var game = new ChessGame();
+        long[] expected = {20, 400, 8902, 197281, 4865609};
+        for (int depth = 1; depth <= expected.length; depth++) {
+            Assertions.assertEquals(expected[depth - 1], Perft.perft(game, depth), "Wrong node count at depth " + depth);
+        }
+        Assertions.assertEquals(new ChessGame(), game, "Perft left the game changed");
+    }
+
+    @Test
+    @DisplayName("Rook and Pawn Endgame")
+    public void rookPawnEndgame() {
+        var game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | | | | | |
+                | | |p| | | | | |
+                | | | |p| | | | |
+                |K|P| | | | | |r|
+                | |R| | | |p| |k|
+                | | | | | | | | |
+                | | | | |P| |P| |
+                | | | | | | | | |
+                """));
+        Assertions.assertEquals(14, Perft.perft(game, 1), "Wrong node count at depth 1");
+        Assertions.assertEquals(191, Perft.perft(game, 2), "Wrong node count at depth 2");
+    }
+
+    @Test
+    @DisplayName("Castling Heavy Middlegame")
+    public void kiwipete() {
+        var game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        long[] expected = {48, 2039, 97862};
+        for (int depth = 1; depth <= expected.length; depth++) {
+            Assertions.assertEquals(expected[depth - 1], Perft.perft(game, depth), "Wrong node count at depth " + depth);
+        }
+    }
+
+    @Test
+    @DisplayName("En Passant Pins")
+    public void enPassantPins() {
+        // the rook on h5 pins along the fifth row once both pawns leave it
+        var game = ChessGame.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        Assertions.assertEquals(2812, Perft.perft(game, 3), "Wrong node count at depth 3");
+        Assertions.assertEquals(43238, Perft.perft(game, 4), "Wrong node count at depth 4");
+        var promotions = ChessGame.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        Assertions.assertEquals(422333, Perft.perft(promotions, 4), "Wrong node count at depth 4");
+    }
+
+    @Test
+    @DisplayName("Legal Generator Matches validMoves")
+    public void matchesValidMoves() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                |r| | | |k| | |r|
+                |p| |p|p|q|p|b| |
+                |b|n| | |p|n|p| |
+                | | | |P|N| | | |
+                | |p| | |P| | | |
+                | | |N| | |Q| |p|
+                |P|P|P|B|B|P|P|P|
+                |R| | | |K| | |R|
+                """));
+        for (Map.Entry<ChessMove, Long> entry : Perft.divide(game, 3).entrySet()) {
+            ChessMove move = entry.getKey();
+            Assertions.assertTrue(game.validMoves(move.getStartPosition()).contains(move), "validMoves missing " + move);
+        }
+        Assertions.assertEquals(countWithValidMoves(game, 3), Perft.perft(game, 3), "Generators disagree at depth 3");
+    }
+
+    // the same count built from validMoves and makeMove, which test every move by playing it out
+    private static long countWithValidMoves(ChessGame game, int depth) throws InvalidMoveException {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = game.getBoard().getPiece(square);
+            if (piece == null || piece.getTeamColor() != game.getTeamTurn()) {
+                continue;
+            }
+            for (ChessMove move : game.validMoves(ChessPosition.of(square))) {
+                game.makeMove(move);
+                nodes += countWithValidMoves(game, depth - 1);
+                game.undoMove();
+            }
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,87 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class PositionCodecTests {
+
+    @Test
+    @DisplayName("Starting Board Round Trip")
+    public void startingBoardRoundTrip() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        byte[] bytes = board.toBytes();
+        Assertions.assertEquals(PositionCodec.BOARD_BYTES, bytes.length, "Wrong encoded board size");
+        Assertions.assertEquals(board, ChessBoard.fromBytes(bytes), "Board changed in round trip");
+    }
+
+    @Test
+    @DisplayName("Game State Round Trip")
+    public void gameRoundTrip() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |q| | | | | |
+                | | | | | | | | |
+                | | | |K| |R| | |
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        game.makeMove(new ChessMove(new ChessPosition(3, 3), new ChessPosition(3, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 6), new ChessPosition(1, 7), null));
+
+        byte[] bytes = game.toBytes();
+        Assertions.assertEquals(PositionCodec.GAME_BYTES, bytes.length, "Wrong encoded game size");
+        ChessGame decoded = ChessGame.fromBytes(bytes);
+        Assertions.assertEquals(game, decoded, "Game changed in round trip");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn(), "Wrong team to move");
+        Assertions.assertEquals(2, decoded.getHalfmoveClock(), "Halfmove clock not kept");
+        Assertions.assertEquals(game.getZobristKey(), decoded.getZobristKey(), "Keys differ after round trip");
+    }
+
+    @Test
+    @DisplayName("GameData Json Uses Compact Form Where Registered")
+    public void gameDataJson() {
+        Gson gson = new GsonBuilder().registerTypeAdapter(ChessGame.class, new ChessGameAdapter()).create();
+        GameData gameData = new GameData(7, "white", null, "compact", new ChessGame());
+        String json = gson.toJson(gameData);
+        Assertions.assertTrue(json.length() < 150, "Game json is not compact: " + json);
+        Assertions.assertEquals(gameData, gson.fromJson(json, GameData.class), "GameData changed in json round trip");
+
+        // Gson without the adapter keeps writing the game's fields
+        String plain = new Gson().toJson(gameData);
+        Assertions.assertTrue(plain.contains("\"board\""), "Plain Gson changed format: " + plain);
+    }
+
+    @Test
+    @DisplayName("Bad Encodings Rejected")
+    public void badEncodings() {
+        byte[] bytes = new ChessGame().toBytes();
+        bytes[0] = (byte) 0xFD;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(bytes),
+                "Unknown piece code was accepted");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(new byte[10]),
+                "Short encoding was accepted");
+        // en passant squares off the row a pawn just skipped, or on the mover's own side
+        byte[] enPassant = ChessGame.fromFen("4k3/8/8/8/4P3/8/8/4K3 b - e3 0 1").toBytes();
+        Assertions.assertDoesNotThrow(() -> ChessGame.fromBytes(enPassant), "Good en passant square rejected");
+        enPassant[33] = (byte) (Bitboards.square(4, 5) + 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(enPassant),
+                "En passant square off row 3 was accepted");
+        enPassant[33] = (byte) (Bitboards.square(6, 5) + 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(enPassant),
+                "En passant square behind the side to move was accepted");
+        Assertions.assertThrows(JsonParseException.class,
+                () -> new GsonBuilder().registerTypeAdapter(ChessGame.class, new ChessGameAdapter()).create()
+                        .fromJson("\"not a game\"", ChessGame.class), "Bad json was accepted");
+    }
+}
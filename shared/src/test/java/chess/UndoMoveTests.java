@@ -0,0 +1,80 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class UndoMoveTests {
+
+    @Test
+    @DisplayName("Undo Restores Captures and Promotions")
+    public void undoRestoresBoard() {
+        var game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | |n| | | | |k|
+                | | | |P| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                """));
+        var expected = TestUtilities.loadBoard("""
+                | | |n| | | | |k|
+                | | | |P| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                """);
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(game.getBoard(), ChessGame.TeamColor.WHITE, moves, 0);
+        for (int i = 0; i < count; i++) {
+            game.applyMove(moves[i]);
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn(), "Turn not switched");
+            game.undoMove();
+            Assertions.assertEquals(expected, game.getBoard(), "Board changed after undo of " + PackedMove.toChessMove(moves[i]));
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn(), "Turn not restored");
+        }
+    }
+
+    @Test
+    @DisplayName("Undo With Empty History")
+    public void undoWithoutMove() {
+        var game = new ChessGame();
+        Assertions.assertThrows(IllegalStateException.class, game::undoMove);
+    }
+
+    @Test
+    @DisplayName("Copy Is Independent and Keeps History")
+    public void copyKeepsHistory() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        var copy = new ChessGame(game);
+        Assertions.assertEquals(game, copy, "Copy differs from the original");
+        Assertions.assertEquals(game.getZobristKey(), copy.getZobristKey(), "Copy has a different key");
+
+        copy.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn(), "Move on the copy changed the original");
+        Assertions.assertNull(game.getBoard().getPiece(new ChessPosition(5, 5)), "Copy shares the original's board");
+
+        copy.undoMove();
+        copy.undoMove();
+        Assertions.assertEquals(new ChessGame(), copy, "Copy didn't keep the original's history");
+    }
+
+    @Test
+    @DisplayName("Undo Restores a Long Halfmove Clock")
+    public void undoRestoresLongClock() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K1N1 w - - 1500 800");
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        Assertions.assertEquals(1501, game.getHalfmoveClock(), "Clock not advanced");
+        game.undoMove();
+        Assertions.assertEquals(1500, game.getHalfmoveClock(), "Undo didn't restore the exact clock");
+    }
+}
@@ -0,0 +1,86 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTests {
+
+    @Test
+    @DisplayName("Transposed Move Orders Share a Key")
+    public void transposition() throws InvalidMoveException {
+        var knightsFirst = new ChessGame();
+        knightsFirst.makeMove(move(1, 7, 3, 6));
+        knightsFirst.makeMove(move(8, 7, 6, 6));
+        knightsFirst.makeMove(move(1, 2, 3, 3));
+        knightsFirst.makeMove(move(8, 2, 6, 3));
+
+        var otherOrder = new ChessGame();
+        otherOrder.makeMove(move(1, 2, 3, 3));
+        otherOrder.makeMove(move(8, 2, 6, 3));
+        otherOrder.makeMove(move(1, 7, 3, 6));
+        otherOrder.makeMove(move(8, 7, 6, 6));
+
+        Assertions.assertEquals(knightsFirst.getZobristKey(), otherOrder.getZobristKey(), "Same position, different keys");
+        Assertions.assertNotEquals(new ChessGame().getZobristKey(), knightsFirst.getZobristKey(), "Different positions share a key");
+    }
+
+    @Test
+    @DisplayName("Incremental Key Matches a Fresh Board")
+    public void incrementalMatchesFresh() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 4, 5, 4));
+        game.makeMove(move(4, 5, 5, 4));
+
+        var rebuilt = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            rebuilt.addPiece(square, game.getBoard().getPiece(square));
+        }
+        Assertions.assertEquals(rebuilt.getZobristKey(), game.getBoard().getZobristKey(), "Incremental key drifted");
+
+        var start = new ChessGame();
+        game.undoMove();
+        game.undoMove();
+        game.undoMove();
+        Assertions.assertEquals(start.getZobristKey(), game.getZobristKey(), "Undo did not restore the key");
+    }
+
+    @Test
+    @DisplayName("Castling and En Passant State Follows the Moves")
+    public void castlingAndEnPassant() throws InvalidMoveException {
+        var game = ChessGame.fromFen("r3k2r/8/8/8/1p6/8/P7/R3K2R w KQkq - 0 1");
+        game.makeMove(move(2, 1, 4, 1));
+        Assertions.assertEquals(Bitboards.square(3, 1), game.getEnPassantSquare(), "Double push didn't open en passant");
+        game.makeMove(move(4, 2, 3, 1));
+        Assertions.assertNull(game.getBoard().getPiece(new ChessPosition(4, 1)), "En passant left the pawn behind");
+        game.makeMove(move(1, 5, 1, 7));
+        game.makeMove(move(8, 8, 8, 6));
+        Assertions.assertEquals(ChessGame.BLACK_QUEENSIDE, game.getCastlingRights(), "Rights not cleared by the moves");
+
+        // a game rebuilt from the text has no history, so any drift in the kept state shows up
+        var rebuilt = ChessGame.fromFen(game.toFen());
+        Assertions.assertEquals(rebuilt.getZobristKey(), game.getZobristKey(), "Kept state drifted from the position");
+        Assertions.assertEquals("r3kr2/8/8/8/8/p7/8/R4RK1 w q - 2 1", game.toFen(), "Wrong position after the moves");
+
+        var start = ChessGame.fromFen("r3k2r/8/8/8/1p6/8/P7/R3K2R w KQkq - 0 1");
+        for (int i = 0; i < 4; i++) {
+            game.undoMove();
+        }
+        Assertions.assertEquals(start.toFen(), game.toFen(), "Undo did not restore the position");
+        Assertions.assertEquals(start.getZobristKey(), game.getZobristKey(), "Undo did not restore the key");
+    }
+
+    @Test
+    @DisplayName("Side To Move Changes the Key")
+    public void sideToMove() {
+        var game = new ChessGame();
+        long white = game.getZobristKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertNotEquals(white, game.getZobristKey(), "Turn not part of the key");
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+}
@@ -0,0 +1,68 @@
+package engine;
+
+import chess.ChessGame;
+import chess.MoveGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class EvaluatorTests {
+
+    @Test
+    @DisplayName("Starting Position Is Even")
+    public void startingPosition() {
+        var game = new ChessGame();
+        var evaluator = new PieceSquareEvaluator();
+        evaluator.reset(game);
+        Assertions.assertEquals(0, evaluator.evaluate(game.getBoard(), ChessGame.TeamColor.WHITE), "Start not even");
+    }
+
+    @Test
+    @DisplayName("Mirrored Positions Score the Same")
+    public void mirrored() {
+        ChessGame white = ChessGame.fromFen("4k3/8/8/8/3P4/2N5/8/4K3 w - - 0 1");
+        ChessGame black = ChessGame.fromFen("4k3/8/2n5/3p4/8/8/8/4K3 b - - 0 1");
+        var evaluator = new PieceSquareEvaluator();
+        evaluator.reset(white);
+        int whiteScore = evaluator.evaluate(white.getBoard(), ChessGame.TeamColor.WHITE);
+        evaluator.reset(black);
+        Assertions.assertEquals(whiteScore, evaluator.evaluate(black.getBoard(), ChessGame.TeamColor.BLACK),
+                "Mirrored position scored differently");
+        Assertions.assertTrue(whiteScore > 300, "Extra knight and pawn not counted: " + whiteScore);
+    }
+
+    @Test
+    @DisplayName("Incremental Score Matches a Fresh One")
+    public void incrementalMatchesReset() {
+        var random = new Random(2024);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int game = 0; game < 50; game++) {
+            var chessGame = new ChessGame();
+            var incremental = new PieceSquareEvaluator();
+            var fresh = new PieceSquareEvaluator();
+            incremental.reset(chessGame);
+            int played = 0;
+            for (; played < 150; played++) {
+                int count = chessGame.legalMoves(chessGame.getTeamTurn(), moves);
+                if (count == 0) {
+                    break;
+                }
+                int move = moves[random.nextInt(count)];
+                incremental.push(chessGame.getBoard(), move);
+                chessGame.applyMove(move);
+                fresh.reset(chessGame);
+                ChessGame.TeamColor turn = chessGame.getTeamTurn();
+                Assertions.assertEquals(fresh.evaluate(chessGame.getBoard(), turn),
+                        incremental.evaluate(chessGame.getBoard(), turn), "Incremental score drifted");
+            }
+            for (; played > 0; played--) {
+                chessGame.undoMove();
+                incremental.pop();
+            }
+            Assertions.assertEquals(0, incremental.evaluate(chessGame.getBoard(), ChessGame.TeamColor.WHITE),
+                    "Score not restored after popping every move");
+        }
+    }
+}
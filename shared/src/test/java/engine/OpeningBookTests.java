@@ -0,0 +1,94 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.MoveGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class OpeningBookTests {
+
+    @TempDir
+    Path dir;
+
+    private Path buildBook() throws IOException {
+        var writer = new OpeningBookWriter();
+        for (int i = 0; i < 3; i++) {
+            writer.addGame("e2e4 e7e5 g1f3 b8c6".split(" "), 16);
+        }
+        writer.addGame("d2d4 d7d5 c2c4".split(" "), 16);
+        // filler positions so the lookups have something to search through
+        var random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            writer.add(random.nextLong(), 0x0123, 1 + random.nextInt(100));
+        }
+        Path path = dir.resolve("test.bin");
+        writer.write(path);
+        return path;
+    }
+
+    @Test
+    @DisplayName("Probe Finds Weighted Moves")
+    public void probe() throws IOException {
+        try (OpeningBook book = OpeningBook.open(buildBook())) {
+            Assertions.assertEquals(5000 + 7, book.size(), "Wrong entry count");
+            int[] moves = new int[8];
+            int[] weights = new int[8];
+            int count = book.probe(new ChessGame().getZobristKey(), moves, weights);
+            Assertions.assertEquals(2, count, "Wrong number of moves from the start");
+            // e2e4 was played three times, so it comes first
+            Assertions.assertEquals(12 << 6 | 28, moves[0], "Heaviest move not first");
+            Assertions.assertEquals(3, weights[0], "Repeated games not merged");
+            Assertions.assertEquals(1, weights[1], "Wrong weight for d2d4");
+
+            Assertions.assertEquals(0, book.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1").getZobristKey(),
+                    moves, weights), "Found moves for a position not in the book");
+        }
+    }
+
+    @Test
+    @DisplayName("Choose Follows the Weights")
+    public void choose() throws IOException {
+        try (OpeningBook book = OpeningBook.open(buildBook())) {
+            var game = new ChessGame();
+            var random = new Random(1);
+            Map<ChessMove, Integer> picks = new HashMap<>();
+            int[] scratch = new int[MoveGenerator.MAX_MOVES];
+            for (int i = 0; i < 4000; i++) {
+                int move = book.choose(game, random, scratch);
+                Assertions.assertNotEquals(0, move, "No book move from the start");
+                picks.merge(chess.PackedMove.toChessMove(move), 1, Integer::sum);
+            }
+            int kingPawn = picks.get(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+            Assertions.assertTrue(kingPawn > 2700 && kingPawn < 3300, "e2e4 picked " + kingPawn + " of 4000");
+
+            game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+            Assertions.assertEquals(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null),
+                    book.choose(game, random), "Wrong reply from the book");
+            game.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(6, 1), null));
+            Assertions.assertNull(book.choose(game, random), "Out of book position had a move");
+        } catch (chess.InvalidMoveException ex) {
+            Assertions.fail(ex);
+        }
+    }
+
+    @Test
+    @DisplayName("Rejects Files That Aren't Books")
+    public void badFile() throws IOException {
+        Path path = dir.resolve("bad.bin");
+        Files.write(path, new byte[17]);
+        Assertions.assertThrows(IOException.class, () -> OpeningBook.open(path), "Opened a truncated book");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new OpeningBookWriter().addGame(new String[]{"e2e5"}, 4), "Accepted an illegal move");
+    }
+}
@@ -0,0 +1,88 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelSearchTests {
+
+    private static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1";
+
+    @Test
+    @DisplayName("Single Thread Matches Search")
+    public void singleThread() {
+        ChessGame game = ChessGame.fromFen(MIDDLEGAME);
+        SearchResult expected = new Search(new TranspositionTable(4)).search(game, SearchLimits.depth(5));
+        try (var search = new ParallelSearch(1, new TranspositionTable(4))) {
+            SearchResult result = search.search(game, SearchLimits.depth(5));
+            Assertions.assertEquals(expected.bestMove(), result.bestMove(), "Different move from one thread");
+            Assertions.assertEquals(expected.score(), result.score(), "Different score from one thread");
+            Assertions.assertEquals(expected.nodes(), result.nodes(), "Different node count from one thread");
+        }
+    }
+
+    @Test
+    @DisplayName("Helpers Find the Same Mate")
+    public void helpersFindMate() {
+        ChessGame game = ChessGame.fromFen("kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1");
+        try (var search = new ParallelSearch(4, new TranspositionTable(4))) {
+            SearchResult result = search.search(game, SearchLimits.depth(5));
+            Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(6, 1), null),
+                    result.bestMove(), "Missed the mate");
+            Assertions.assertEquals(Search.MATE - 3, result.score(), "Wrong mate score");
+            Assertions.assertEquals(ChessGame.fromFen("kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1"), game,
+                    "Search left the game changed");
+        }
+    }
+
+    @Test
+    @DisplayName("Helper Work Feeds the Main Search")
+    public void helpersShareWork() {
+        ChessGame game = ChessGame.fromFen(MIDDLEGAME);
+        long cold = new Search(new TranspositionTable(4)).search(game, SearchLimits.depth(5)).nodes();
+
+        TranspositionTable table = new TranspositionTable(4);
+        try (var search = new ParallelSearch(2, table)) {
+            // run the helper to the end on this thread, so nothing depends on how threads get scheduled
+            table.newSearch();
+            search.prepareHelper(0, game);
+            SearchResult helper = search.runHelper(0, SearchLimits.depth(5), new AtomicBoolean());
+            Assertions.assertEquals(5, helper.depth(), "Helper didn't finish its search");
+
+            long warm = new Search(table).search(game, SearchLimits.depth(5)).nodes();
+            Assertions.assertTrue(warm < cold / 2, "Main search got little from the helper's table entries: "
+                    + warm + " nodes against " + cold);
+        }
+        Assertions.assertEquals(ChessGame.fromFen(MIDDLEGAME), game, "Helper changed the searched game");
+    }
+
+    @Test
+    @DisplayName("Helpers Stop With the Main Search")
+    public void helpersStop() {
+        ChessGame game = ChessGame.fromFen(MIDDLEGAME);
+        try (var search = new ParallelSearch(4, new TranspositionTable(4))) {
+            SearchResult result = search.search(game, SearchLimits.time(200));
+            Assertions.assertTrue(result.elapsedMillis() < 2000, "Helpers kept searching: "
+                    + result.elapsedMillis() + "ms");
+            Assertions.assertNotNull(result.bestMove(), "No move from a timed search");
+        }
+    }
+
+    @Test
+    @DisplayName("Stop Sent Before a Parallel Search Starts Isn't Lost")
+    public void stopBeforeStart() {
+        ChessGame game = ChessGame.fromFen(MIDDLEGAME);
+        try (ParallelSearch search = new ParallelSearch(2, new TranspositionTable(4))) {
+            search.stop();
+            SearchResult result = search.search(game, SearchLimits.depth(64));
+            Assertions.assertTrue(result.depth() < 64, "Search ignored the stop");
+            Assertions.assertEquals(3, search.search(game, SearchLimits.depth(3)).depth(),
+                    "Stop carried past its search");
+        }
+    }
+}
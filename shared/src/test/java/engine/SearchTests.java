@@ -0,0 +1,117 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SearchTests {
+
+    @Test
+    @DisplayName("Finds Mate in One")
+    public void mateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                result.bestMove(), "Missed back rank mate");
+        Assertions.assertTrue(Search.isMateScore(result.score()) && result.score() > 0, "Not scored as a mate");
+    }
+
+    @Test
+    @DisplayName("Finds Mate in Two")
+    public void mateInTwo() {
+        // Morphy's problem: the quiet Ra6 leaves no defense to b7 or bxa7
+        ChessGame game = ChessGame.fromFen("kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(5));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(6, 1), null),
+                result.bestMove(), "Missed the quiet first move");
+        Assertions.assertEquals(Search.MATE - 3, result.score(), "Mate in two not scored as mate in three plies");
+    }
+
+    @Test
+    @DisplayName("Stop Ends a Running Search")
+    public void stop() throws InterruptedException {
+        Search search = new Search();
+        ChessGame game = new ChessGame();
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            search.stop();
+        });
+        stopper.start();
+        long start = System.nanoTime();
+        SearchResult result = search.search(game, SearchLimits.depth(64));
+        stopper.join();
+        Assertions.assertTrue(System.nanoTime() - start < 10_000_000_000L, "Search ran on after stop");
+        Assertions.assertNotNull(result.bestMove(), "Stopped search had no move");
+
+        // a stop from an earlier search doesn't cut the next one short
+        Assertions.assertEquals(3, search.search(game, SearchLimits.depth(3)).depth(), "Old stop carried over");
+        Assertions.assertEquals(new ChessGame(), game, "Search left the game changed");
+    }
+
+    @Test
+    @DisplayName("Stop Sent Before a Search Starts Isn't Lost")
+    public void stopBeforeStart() {
+        Search search = new Search();
+        ChessGame game = new ChessGame();
+        search.stop();
+        long start = System.nanoTime();
+        SearchResult result = search.search(game, SearchLimits.depth(64));
+        Assertions.assertTrue(System.nanoTime() - start < 10_000_000_000L, "Search ignored the stop");
+        Assertions.assertTrue(result.depth() < 64, "Search ignored the stop");
+        Assertions.assertNotNull(result.bestMove(), "Stopped search had no move");
+        Assertions.assertEquals(3, search.search(game, SearchLimits.depth(3)).depth(), "Stop carried past its search");
+    }
+
+    @Test
+    @DisplayName("Takes a Hanging Queen")
+    public void winsMaterial() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null),
+                result.bestMove(), "Didn't take the queen");
+    }
+
+    @Test
+    @DisplayName("Avoids a Defended Piece")
+    public void seesRecapture() {
+        // the knight on d5 is guarded by the pawn on e6, so quiescence has to see QxN exd5
+        ChessGame game = ChessGame.fromFen("4k3/8/4p3/3n4/8/8/8/3QK3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(1));
+        Assertions.assertNotEquals(new ChessMove(new ChessPosition(1, 4), new ChessPosition(5, 4), null),
+                result.bestMove(), "Traded the queen for a knight");
+    }
+
+    @Test
+    @DisplayName("No Legal Moves")
+    public void noLegalMoves() {
+        ChessGame game = ChessGame.fromFen("k7/8/1Q6/8/8/8/8/7K b - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        Assertions.assertNull(result.bestMove(), "Stalemated side has no move");
+        Assertions.assertEquals(0, result.score(), "Stalemate is a draw");
+    }
+
+    @Test
+    @DisplayName("Node Limit Respected")
+    public void nodeLimit() {
+        var game = new ChessGame();
+        SearchResult result = new Search().search(game, SearchLimits.nodes(5000));
+        Assertions.assertTrue(result.nodes() <= 5000, "Searched past the node limit: " + result.nodes());
+        Assertions.assertNotNull(result.bestMove(), "No move after running out of nodes");
+        Assertions.assertEquals(new ChessGame(), game, "Search left the game changed");
+    }
+
+    @Test
+    @DisplayName("Time Limit Respected")
+    public void timeLimit() {
+        SearchResult result = new Search().search(new ChessGame(), SearchLimits.time(200));
+        Assertions.assertTrue(result.elapsedMillis() < 1000, "Searched too long: " + result.elapsedMillis() + "ms");
+        Assertions.assertTrue(result.depth() >= 1, "Didn't finish a single iteration");
+    }
+}
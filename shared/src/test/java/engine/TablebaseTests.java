@@ -0,0 +1,271 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+public class TablebaseTests {
+
+    @TempDir
+    static Path dir;
+
+    private static TablebaseGenerator generator;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        generator = new TablebaseGenerator();
+        generator.write(Endgame.of("KPvK"), dir);
+        for (String name : new String[]{"KQvK", "KRvK"}) {
+            generator.write(Endgame.of(name), dir);
+        }
+    }
+
+    private static int longestWin(String name) {
+        Endgame endgame = Endgame.of(name);
+        byte[] table = generator.generate(endgame);
+        int[] squares = new int[endgame.pieceCount()];
+        int longest = 0;
+        for (int index = 0; index < table.length; index++) {
+            int value = table[index] & 0xFF;
+            if (!endgame.decode(index, squares) && Tablebase.isWin(value)) {
+                longest = Math.max(longest, Tablebase.pliesToMate(value));
+            }
+        }
+        return longest;
+    }
+
+    @Test
+    @DisplayName("Longest Mates Match Known Results")
+    public void longestMates() {
+        // the longest mates are well known: 10 moves with a queen and 16 with a rook
+        Assertions.assertEquals(19, longestWin("KQvK"), "Wrong longest queen mate");
+        Assertions.assertEquals(31, longestWin("KRvK"), "Wrong longest rook mate");
+        Assertions.assertEquals(0, longestWin("KNvK"), "A lone knight can't mate");
+    }
+
+    @Test
+    @DisplayName("Probe Scores Positions")
+    public void probe() throws IOException {
+        try (Tablebase tablebase = Tablebase.open(dir)) {
+            Assertions.assertTrue(tablebase.endgames().containsAll(List.of("KPvK", "KQvK", "KRvK")),
+                    "Tables missing: " + tablebase.endgames());
+
+            int mateInOne = tablebase.probe(ChessGame.fromFen("k7/8/1K6/8/8/8/7Q/8 w - - 0 1"));
+            Assertions.assertTrue(Tablebase.isWin(mateInOne), "Queen mate not a win");
+            Assertions.assertEquals(1, Tablebase.pliesToMate(mateInOne), "Wrong distance to mate");
+            // the same position with the colors swapped reads the same table
+            Assertions.assertEquals(mateInOne, tablebase.probe(ChessGame.fromFen("8/7q/8/8/8/1k6/8/K7 b - - 0 1")),
+                    "Flipped position scored differently");
+
+            int mated = tablebase.probe(ChessGame.fromFen("k6Q/8/1K6/8/8/8/8/8 b - - 0 1"));
+            Assertions.assertTrue(Tablebase.isLoss(mated), "Checkmate not a loss");
+            Assertions.assertEquals(0, Tablebase.pliesToMate(mated), "Checkmate should be mate now");
+
+            Assertions.assertEquals(Tablebase.DRAW, tablebase.probe(ChessGame.fromFen("k7/P7/1K6/8/8/8/8/8 b - - 0 1")),
+                    "Stalemate not a draw");
+            // king in front of its pawn: the opposition decides it
+            Assertions.assertEquals(Tablebase.DRAW, tablebase.probe(ChessGame.fromFen("8/4k3/8/4K3/4P3/8/8/8 w - - 0 1")),
+                    "Black has the opposition");
+            Assertions.assertTrue(Tablebase.isLoss(tablebase.probe(ChessGame.fromFen("8/4k3/8/4K3/4P3/8/8/8 b - - 0 1"))),
+                    "White has the opposition");
+            Assertions.assertEquals(Tablebase.DRAW, tablebase.probe(ChessGame.fromFen("k7/8/8/8/8/8/P7/K7 w - - 0 1")),
+                    "Rook pawn with the king in front should draw");
+
+            Assertions.assertEquals(Tablebase.DRAW, tablebase.probe(ChessGame.fromFen("k7/8/8/8/8/8/8/K7 w - - 0 1")),
+                    "Bare kings not a draw");
+            Assertions.assertEquals(Tablebase.UNKNOWN, tablebase.probe(new ChessGame()), "Starting position probed");
+        }
+    }
+
+    @Test
+    @DisplayName("Boards Without Both Kings Are Unknown")
+    public void missingKing() throws IOException {
+        try (Tablebase tablebase = Tablebase.open(dir)) {
+            ChessBoard board = new ChessBoard();
+            board.addPiece(0, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+            board.addPiece(9, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+            Assertions.assertEquals(Tablebase.UNKNOWN, tablebase.probe(board, ChessGame.TeamColor.WHITE),
+                    "Probed a board with no black king");
+            board.addPiece(63, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+            Assertions.assertEquals(Tablebase.UNKNOWN, tablebase.probe(board, ChessGame.TeamColor.BLACK),
+                    "Probed a board with two white kings");
+        }
+    }
+
+    @Test
+    @DisplayName("Best Moves Mate")
+    public void bestMoves() throws IOException, InvalidMoveException {
+        try (Tablebase tablebase = Tablebase.open(dir)) {
+            ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/R3K3 w - - 0 1");
+            int plies = Tablebase.pliesToMate(tablebase.probe(game));
+            for (int ply = 0; ply < plies; ply++) {
+                ChessMove move = tablebase.bestMove(game);
+                Assertions.assertNotNull(move, "No move before mate");
+                game.makeMove(move);
+                int value = tablebase.probe(game);
+                Assertions.assertEquals(plies - ply - 1, Tablebase.pliesToMate(value), "Mate got no closer");
+            }
+            Assertions.assertTrue(game.isInCheckmate(game.getTeamTurn()), "Best play didn't mate");
+        }
+    }
+
+    @Test
+    @DisplayName("Small Page Cache Gives the Same Answers")
+    public void smallCache() throws IOException {
+        Endgame endgame = Endgame.of("KPvK");
+        byte[] table = generator.generate(endgame);
+        try (Tablebase tablebase = Tablebase.open(dir, 2)) {
+            Random random = new Random(5);
+            for (int i = 0; i < 20000; i++) {
+                int index = random.nextInt(table.length);
+                int[] squares = new int[3];
+                boolean blackToMove = endgame.decode(index, squares);
+                if ((table[index] & 0xFF) == Tablebase.ILLEGAL) {
+                    continue;
+                }
+                ChessBoard board = new ChessBoard();
+                board.addPiece(squares[0], new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+                board.addPiece(squares[1], new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+                board.addPiece(squares[2], new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+                Assertions.assertEquals(table[index] & 0xFF,
+                        tablebase.probe(board, blackToMove ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE),
+                        "Probe disagrees with the generated table");
+                Assertions.assertTrue(tablebase.mappedPages() <= 2, "Cache grew past its bound");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Failed Mapping Keeps the Cache Bounded")
+    public void failedMapping(@TempDir Path other) throws IOException {
+        for (String name : new String[]{"KQvK", "KRvK"}) {
+            Files.copy(dir.resolve(name + Tablebase.EXTENSION), other.resolve(name + Tablebase.EXTENSION));
+        }
+        // the white king's square and the side to move pick the page, these are four different ones
+        String[] fens = {"7k/8/8/8/8/8/8/K6Q w - - 0 1", "7k/8/8/K7/8/8/8/7Q w - - 0 1",
+                "7k/8/8/8/8/8/8/K6Q b - - 0 1", "7k/8/8/K7/8/8/8/7Q b - - 0 1"};
+        try (Tablebase expected = Tablebase.open(dir); Tablebase tablebase = Tablebase.open(other, 2)) {
+            tablebase.probe(ChessGame.fromFen(fens[0]));
+            tablebase.probe(ChessGame.fromFen(fens[1]));
+            Assertions.assertEquals(2, tablebase.mappedPages(), "Cache not filled");
+
+            // with nothing of it mapped yet, cut the rook table short so mapping its pages fails
+            try (FileChannel channel = FileChannel.open(other.resolve("KRvK" + Tablebase.EXTENSION),
+                    StandardOpenOption.WRITE)) {
+                channel.truncate(Tablebase.HEADER_BYTES);
+            }
+            Assertions.assertThrows(UncheckedIOException.class,
+                    () -> tablebase.probe(ChessGame.fromFen("7k/8/8/8/8/8/8/K6R w - - 0 1")), "Mapped a cut table");
+            Assertions.assertEquals(2, tablebase.mappedPages(), "Failed mapping gave up a page");
+
+            for (int round = 0; round < 2; round++) {
+                for (String fen : fens) {
+                    ChessGame game = ChessGame.fromFen(fen);
+                    Assertions.assertEquals(expected.probe(game), tablebase.probe(game), "Wrong value for " + fen);
+                    Assertions.assertTrue(tablebase.mappedPages() <= 2, "Cache grew past its bound");
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Threads Build the Same Tables")
+    public void parallelMatchesSequential() {
+        byte[] sequential;
+        byte[] parallel;
+        try (TablebaseGenerator one = new TablebaseGenerator(1, null);
+             TablebaseGenerator four = new TablebaseGenerator(4, null)) {
+            sequential = one.generate(Endgame.of("KPvK"));
+            parallel = four.generate(Endgame.of("KPvK"));
+        }
+        Assertions.assertArrayEquals(sequential, parallel, "Table depends on the thread count");
+    }
+
+    @Test
+    @DisplayName("Threads Build the Same Four Piece Table")
+    public void parallelFourPieces() {
+        // 16M positions, so threads racing on the same counters get plenty of chances to collide
+        byte[] sequential;
+        byte[] parallel;
+        try (TablebaseGenerator one = new TablebaseGenerator(1, null);
+             TablebaseGenerator four = new TablebaseGenerator(4, null)) {
+            sequential = one.generate(Endgame.of("KQQvK"));
+            parallel = four.generate(Endgame.of("KQQvK"));
+        }
+        Assertions.assertArrayEquals(sequential, parallel, "Four piece table depends on the thread count");
+    }
+
+    @Test
+    @DisplayName("Reuses Tables Already Written")
+    public void directory(@TempDir Path other) throws IOException {
+        byte[] built;
+        try (TablebaseGenerator generator = new TablebaseGenerator(2, other)) {
+            built = generator.generate(Endgame.of("KRvK"));
+        }
+        Path file = other.resolve("KRvK" + Tablebase.EXTENSION);
+        Assertions.assertEquals(Tablebase.HEADER_BYTES + built.length, Files.size(file), "Table not written");
+        try (TablebaseGenerator generator = new TablebaseGenerator(2, other)) {
+            Assertions.assertArrayEquals(built, generator.generate(Endgame.of("KRvK")), "Table read back differently");
+        }
+    }
+
+    @Test
+    @DisplayName("Four Piece Indexes Round Trip")
+    public void fourPieceIndexes() {
+        Random random = new Random(9);
+        for (String name : new String[]{"KQvKR", "KPvKP", "KRRvK"}) {
+            Endgame endgame = Endgame.of(name);
+            Assertions.assertEquals(64 << 18, endgame.size(), "Wrong table size for " + name);
+            int[] squares = new int[4];
+            for (int i = 0; i < 1000; i++) {
+                int index = random.nextInt(endgame.size());
+                boolean blackToMove = endgame.decode(index, squares);
+                Assertions.assertEquals(index, endgame.index(squares, blackToMove), "Index didn't round trip");
+                // reading the board straight gives what reading its squares out first does
+                ChessBoard board = board(endgame, squares);
+                int[] read = new int[4];
+                endgame.squares(board, false, read);
+                Assertions.assertEquals(endgame.index(read, blackToMove), endgame.index(board, false, blackToMove),
+                        "Board gives another index");
+                // the mirrored position shares the index
+                for (int j = 0; j < squares.length; j++) {
+                    squares[j] ^= 7;
+                }
+                Assertions.assertEquals(index, endgame.index(squares, blackToMove), "Mirror has another index");
+            }
+        }
+    }
+
+    private static ChessBoard board(Endgame endgame, int[] squares) {
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < squares.length; i++) {
+            board.addPiece(squares[i], new ChessPiece(endgame.color(i), endgame.type(i)));
+        }
+        return board;
+    }
+
+    @Test
+    @DisplayName("Rejects Bad Tables")
+    public void badTable(@TempDir Path other) throws IOException {
+        Files.write(other.resolve("KQvK" + Tablebase.EXTENSION), new byte[100]);
+        Assertions.assertThrows(IOException.class, () -> Tablebase.open(other), "Opened a truncated table");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Endgame.of("KQRvKR"), "Five pieces accepted");
+        Assertions.assertEquals("KQvKR", Endgame.of("KRvKQ").name(), "Sides not put in order");
+    }
+}
@@ -0,0 +1,96 @@
+package engine;
+
+import chess.ChessGame;
+import chess.PackedMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TranspositionTableTests {
+
+    private static final long KEY = 0x1234_5678_9ABC_DEF0L;
+
+    @Test
+    @DisplayName("Store and Probe")
+    public void storeAndProbe() {
+        var table = new TranspositionTable(1);
+        Assertions.assertEquals(1 << 16, table.capacity(), "Wrong entry count for 1 MB");
+        Assertions.assertEquals(0, table.probe(KEY), "Empty table had an entry");
+
+        int move = PackedMove.encode(12, 28, 0, PackedMove.DOUBLE_PUSH);
+        table.store(KEY, move, -Search.MATE + 5, 7, TranspositionTable.LOWER_BOUND);
+        long entry = table.probe(KEY);
+        Assertions.assertEquals(move, TranspositionTable.move(entry), "Wrong move");
+        Assertions.assertEquals(-Search.MATE + 5, TranspositionTable.score(entry), "Wrong score");
+        Assertions.assertEquals(7, TranspositionTable.depth(entry), "Wrong depth");
+        Assertions.assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry), "Wrong bound");
+
+        // same slot, different position
+        Assertions.assertEquals(0, table.probe(KEY ^ (1L << 40)), "Probe matched another key");
+        table.clear();
+        Assertions.assertEquals(0, table.probe(KEY), "Clear left an entry");
+    }
+
+    @Test
+    @DisplayName("Depth and Age Replacement")
+    public void replacement() {
+        var table = new TranspositionTable(1);
+        long other = KEY ^ (1L << 40);
+        table.store(KEY, 0, 10, 8, TranspositionTable.EXACT);
+        table.store(other, 0, 20, 3, TranspositionTable.EXACT);
+        Assertions.assertEquals(10, TranspositionTable.score(table.probe(KEY)), "Shallow entry replaced a deep one");
+
+        table.store(other, 0, 20, 8, TranspositionTable.UPPER_BOUND);
+        Assertions.assertEquals(20, TranspositionTable.score(table.probe(other)), "Equal depth entry not stored");
+
+        table.newSearch();
+        table.store(KEY, 0, 30, 1, TranspositionTable.UPPER_BOUND);
+        Assertions.assertEquals(30, TranspositionTable.score(table.probe(KEY)), "Old search's entry not replaced");
+    }
+
+    @Test
+    @DisplayName("Threads Never Read Another Position's Entry")
+    public void concurrentStores() throws InterruptedException {
+        var table = new TranspositionTable(1);
+        // every key lands in the same slot and stores a score derived from the key
+        List<Thread> threads = new ArrayList<>();
+        boolean[] mismatch = new boolean[1];
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    long key = ((long) (thread * 1000 + i % 1000) << 20) | 7;
+                    table.store(key, 0, (int) (key >>> 20) % 30000, 20, TranspositionTable.EXACT);
+                    long entry = table.probe(key);
+                    if (entry != 0 && TranspositionTable.score(entry) != (int) (key >>> 20) % 30000) {
+                        mismatch[0] = true;
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertFalse(mismatch[0], "A probe returned data stored for a different key");
+    }
+
+    @Test
+    @DisplayName("Search With Shared Table")
+    public void sharedTable() {
+        var table = new TranspositionTable(4);
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        SearchResult first = new Search(table).search(game, SearchLimits.depth(5));
+        SearchResult second = new Search(table).search(game, SearchLimits.depth(5));
+        Assertions.assertTrue(second.nodes() < first.nodes(), "Second search didn't reuse the table: "
+                + first.nodes() + " then " + second.nodes());
+        long root = table.probe(game.getZobristKey());
+        Assertions.assertEquals(second.bestMove(), PackedMove.toChessMove(TranspositionTable.move(root)),
+                "Root entry doesn't hold the best move");
+    }
+}